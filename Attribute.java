@@ -6,12 +6,14 @@ import java.util.ArrayList;
  * each turn. The value of the attribute is stored in 'currentVal.' Each Attribute can also hold any number of modifiers that can take place at
  * the beginning or end of each turn, for any number of turns or for the entire combat. To maintain its own value, each Attribute only needs to
  * be notified of when a turn begins, when a turn ends, and when a new combat encounter begins.
+ * 
+ * The values and modifiers themselves live in one row of an EntityStore; an Attribute belonging to an Entity is a view over that Entity's row, while
+ * an Attribute created on its own gets a private store holding only its own row(see EntityStore.attributeStore).
  */
 public class Attribute {
 	
-	boolean turnReset;
-	int minimumVal, modifyRate, defaultVal, currentVal;
-	private ArrayList<Integer> startModifiers, endModifiers;
+	private final EntityStore store;
+	private final int row;
 
 	/**
 	 * Creates an Attribute with the given turnReset boolean, as well as minimum value, modify rate, and default value. If turnReset is true, the Attribute's
@@ -22,13 +24,9 @@ public class Attribute {
 	 * @param defaultVal
 	 */
 	public Attribute(boolean turnReset, int minimumVal, int modifyRate, int defaultVal) {
-		this.turnReset = turnReset;
-		this.minimumVal = minimumVal;
-		this.modifyRate = modifyRate;
-		this.defaultVal = defaultVal;
-		currentVal = 0;
-		startModifiers = new ArrayList<Integer>();
-		endModifiers = new ArrayList<Integer>();
+		store = EntityStore.attributeStore();
+		row = 0;
+		store.setUp(row, turnReset, minimumVal, modifyRate, defaultVal);
 	}
 	
 	/**
@@ -54,57 +52,66 @@ public class Attribute {
 	 */
 	public Attribute(Attribute a) {
 		this(a.getTurnReset(), a.getMinimumVal(), a.getModifyRate(), a.getDefaultVal());
-		currentVal = a.getCurrentVal();
-		startModifiers = a.getStartModifiers();
-		endModifiers = a.getEndModifiers();
+		store.copyAttribute(a.store, a.row, row);
 	}
+	
+	/**
+	 * Creates an Attribute that views an attribute row of an EntityStore.
+	 * @param store the store holding the attribute.
+	 * @param row the attribute's row(slot * EntityStore.ATTRIBUTES + kind).
+	 */
+	Attribute(EntityStore store, int row) {
+		this.store = store;
+		this.row = row;
+	}
+	
 	/**
 	 * @return The smallest possible value of currentVal.
 	 */
 	public int getMinimumVal() {
-		return minimumVal;
+		return store.minimumVal[row];
 	}
 
 	/**
 	 * @return the amount added to currentVal each turn(note that if turnReset is true, this value is not used).
 	 */
 	public int getModifyRate() {
-		return modifyRate;
+		return store.modifyRate[row];
 	}
 
 	/**
 	 * @return each combat begins with currentVal at this value. If turnReset is true, currentVal is set to this value each turn.
 	 */
 	public int getDefaultVal() {
-		return defaultVal;
+		return store.defaultVal[row];
 	}
 
 	/**
 	 * @return the Attribute's current numeric value(currentVal).
 	 */
 	public int getCurrentVal() {
-		return currentVal;
+		return store.currentVal[row];
 	}
 	
 	/**
 	 * @return true: each turn, currentVal is reset to defaultVal. false: each turn, modifyRate is added to currentVal.
 	 */
 	public boolean getTurnReset() {
-		return turnReset;
+		return store.turnReset[row];
 	}
 	
 	/**
 	 * @return a copy of the Attribute's list of start turn modifiers.
 	 */
 	public ArrayList<Integer> getStartModifiers() {
-		return new ArrayList<Integer>(startModifiers);
+		return store.modifiers.toList(row * 2);
 	}
 
 	/**
 	 * @return a copy of the Attribute's list of end turn modifiers.
 	 */
 	public ArrayList<Integer> getEndModifiers() {
-		return new ArrayList<Integer>(endModifiers);
+		return store.modifiers.toList(row * 2 + 1);
 	}
 
 	/**
@@ -112,26 +119,14 @@ public class Attribute {
 	 * @param amount adds this amount to currentVal.
 	 */
 	public void modifyVal(int amount) {
-		currentVal = Math.max(minimumVal, currentVal + amount);
+		store.modifyAttribute(row, amount);
 	}
 	
 	/**
 	 * @param modifyRate add this amount to currentVal each turn.
 	 */
 	public void setModifyRate(int modifyRate) {
-		turnReset = false;
-		this.modifyRate = modifyRate;
-	}
-	
-	/** 
-	 * Private utility method, used to add a modifier to either startModifiers or endModifiers.
-	 * @param amount how much to modify currentVal by each time a turn begins or ends.
-	 * @param duration how many turns this modifier will last; -1 will cause the effect to last the entire combat.
-	 * @param modifiers which list to use.
-	 */
-	private void addModifier(int amount, int duration, ArrayList<Integer> modifiers) {
-		modifiers.add(amount);
-		modifiers.add(duration);
+		store.setModifyRate(row, modifyRate);
 	}
 	
 	/**
@@ -140,7 +135,7 @@ public class Attribute {
 	 * @param duration how many turns this modifier will last; -1 will cause the effect to last the entire combat.
 	 */
 	public void addStartModifier(int amount, int duration) {
-		addModifier(amount, duration, startModifiers);
+		store.addModifier(row * 2, amount, duration);
 	}
 	
 	/**
@@ -149,7 +144,7 @@ public class Attribute {
 	 * @param duration how many turns this modifier will last; -1 will cause the effect to last the entire combat.
 	 */
 	public void addEndModifier(int amount, int duration) {
-		addModifier(amount, duration, endModifiers);
+		store.addModifier(row * 2 + 1, amount, duration);
 	}
 	
 	/**
@@ -158,57 +153,28 @@ public class Attribute {
 	 * @return whether or not currentVal is equal to a given int.
 	 */
 	public boolean equals(int n) {
-		return currentVal == n;
-	}
-	
-	/**
-	 * Private utility method; applies the modifiers found in either startModifiers or endModifiers. Each modifier list represents one modifer for every two elements.
-	 * eg: modify the attribute by (amount)startModifiers.get(0) for (duration)startModifiers.get(1) turns. The counters are reduced by 1 each time this method is called,
-	 * and currentVal is modified by the amount; when the counter reaches 0, both the counter and the amount are removed from the list. If the counter is -1, the modifier's
-	 * counter will be ignored and the amount will be applied each time this method is called until the startCombat() method is called.
-	 * @param modifiers
-	 */
-	private void applyModifiers(ArrayList<Integer> modifiers) {
-		for (int i = modifiers.size() - 1; i >= 0; i -= 2) {
-			
-			if (modifiers.get(i) == 0) {
-				modifiers.remove(i);
-				modifiers.remove(i - 1);
-			} else {
-				if (modifiers.get(i) != -1)
-					modifiers.set(i, modifiers.get(i) - 1);
-				modifyVal(modifiers.get(i - 1));
-			}
-			
-		}
+		return store.currentVal[row] == n;
 	}
 	
 	/**
 	 * If turnReset is true, resets currentVal to defaultVal. Otherwise, adds modifyRate to currentVal. Applies all start turn modifiers.
 	 */
 	public void startTurn() {
-		if (turnReset)
-			currentVal = defaultVal;
-		else
-			modifyVal(modifyRate);
-		
-		applyModifiers(startModifiers);
+		store.startTurnAttribute(row);
 	}
 	
 	/**
 	 * Applies all end turn modifiers.
 	 */
 	public void endTurn() {
-		applyModifiers(endModifiers);
+		store.endTurnAttribute(row);
 	}
 	
 	/**
 	 * Sets currentVal to defaultVal. Clears all modifiers.
 	 */
 	public void startCombat() {
-		currentVal = defaultVal;
-		startModifiers.clear();
-		endModifiers.clear();
+		store.startCombatAttribute(row);
 	}
 	
 	//Feel free to screw around with this to figure out how things work(runs 25 turns with an Attribute and whatever modifiers you want).
@@ -0,0 +1,162 @@
+import java.util.ArrayList;
+
+/**
+ * Checks Attribute against the list-based implementation it replaced: runs random sequences of constructions, copies, modifier adds, value changes
+ * and turns on both, and compares their values, settings and modifier lists after every step. Half of the sequences use an Attribute created on its
+ * own, and half an Attribute viewing a row of a shared EntityStore. Expired modifiers must be removed without reordering the others, as the order in
+ * which amounts are added changes the result once a value is clamped at its minimum.
+ *
+ * Prints a summary if every sequence matched, and otherwise fails with an IllegalStateException naming the sequence and step.
+ */
+public class AttributeCheck {
+
+	private static final int STEPS = 200;
+
+	/**
+	 * Runs the check.
+	 * @param args optionally, the number of sequences to run(20000 by default).
+	 */
+	public static void main(String[] args) {
+		int sequences = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		EntityStore shared = new EntityStore(4);
+		for (int i = 0; i < 3; i ++)
+			shared.allocate();
+
+		for (int s = 0; s < sequences; s ++) {
+			GameRandom random = new GameRandom(s);
+			boolean reset = random.nextInt(2) == 0;
+			int minimum = random.nextInt(2) == 0 ? -999 : random.nextInt(3) - 1, rate = random.nextInt(5) - 2, defaultValue = random.nextInt(5) - 2;
+			ListAttribute expected = new ListAttribute(reset, minimum, rate, defaultValue);
+			Attribute actual;
+			if (s % 2 == 0) {
+				actual = new Attribute(reset, minimum, rate, defaultValue);
+			} else {
+				int slot = 1 + random.nextInt(2), row = slot * EntityStore.ATTRIBUTES + random.nextInt(EntityStore.ATTRIBUTES);
+				shared.setUp(row, reset, minimum, rate, defaultValue);
+				shared.rehash(slot);
+				actual = new Attribute(shared, row);
+			}
+
+			for (int step = 0; step < STEPS; step ++) {
+				int op = random.nextInt(20);
+				if (op < 4) {
+					int amount = random.nextInt(7) - 3, duration = random.nextInt(5) - 1;
+					expected.addStartModifier(amount, duration);
+					actual.addStartModifier(amount, duration);
+				} else if (op < 8) {
+					int amount = random.nextInt(7) - 3, duration = random.nextInt(5) - 1;
+					expected.addEndModifier(amount, duration);
+					actual.addEndModifier(amount, duration);
+				} else if (op < 10) {
+					int amount = random.nextInt(9) - 4;
+					expected.modifyVal(amount);
+					actual.modifyVal(amount);
+				} else if (op < 11) {
+					int newRate = random.nextInt(5) - 2;
+					expected.setModifyRate(newRate);
+					actual.setModifyRate(newRate);
+				} else if (op < 14) {
+					expected.startTurn();
+					actual.startTurn();
+				} else if (op < 17) {
+					expected.endTurn();
+					actual.endTurn();
+				} else if (op < 18) {
+					expected.startCombat();
+					actual.startCombat();
+				} else {
+					expected = new ListAttribute(expected);
+					actual = new Attribute(actual);
+				}
+				compare(expected, actual, s, step);
+			}
+		}
+		System.out.println(sequences + " sequences of " + STEPS + " steps: every Attribute matched the list-based implementation");
+	}
+
+	/**
+	 * Private utility method, fails if an Attribute differs from its expected state.
+	 */
+	private static void compare(ListAttribute expected, Attribute actual, int sequence, int step) {
+		if (expected.currentVal != actual.getCurrentVal() || expected.turnReset != actual.getTurnReset() || expected.modifyRate != actual.getModifyRate()
+				|| !expected.startModifiers.equals(actual.getStartModifiers()) || !expected.endModifiers.equals(actual.getEndModifiers()))
+			throw new IllegalStateException("sequence " + sequence + ", step " + step + ": expected " + expected.currentVal + " " + expected.startModifiers
+					+ expected.endModifiers + ", found " + actual.getCurrentVal() + " " + actual.getStartModifiers() + actual.getEndModifiers());
+	}
+
+	/**
+	 * The original Attribute, which kept its modifiers as boxed amount and duration pairs in ArrayLists, kept as the reference the check compares to.
+	 */
+	private static class ListAttribute {
+
+		private boolean turnReset;
+		private int minimumVal, modifyRate, defaultVal, currentVal;
+		private ArrayList<Integer> startModifiers = new ArrayList<Integer>(), endModifiers = new ArrayList<Integer>();
+
+		ListAttribute(boolean turnReset, int minimumVal, int modifyRate, int defaultVal) {
+			this.turnReset = turnReset;
+			this.minimumVal = minimumVal;
+			this.modifyRate = modifyRate;
+			this.defaultVal = defaultVal;
+		}
+
+		ListAttribute(ListAttribute a) {
+			this(a.turnReset, a.minimumVal, a.modifyRate, a.defaultVal);
+			currentVal = a.currentVal;
+			startModifiers.addAll(a.startModifiers);
+			endModifiers.addAll(a.endModifiers);
+		}
+
+		void modifyVal(int amount) {
+			currentVal = Math.max(minimumVal, currentVal + amount);
+		}
+
+		void setModifyRate(int modifyRate) {
+			turnReset = false;
+			this.modifyRate = modifyRate;
+		}
+
+		void addStartModifier(int amount, int duration) {
+			startModifiers.add(amount);
+			startModifiers.add(duration);
+		}
+
+		void addEndModifier(int amount, int duration) {
+			endModifiers.add(amount);
+			endModifiers.add(duration);
+		}
+
+		private void applyModifiers(ArrayList<Integer> modifiers) {
+			for (int i = modifiers.size() - 1; i >= 0; i -= 2) {
+				if (modifiers.get(i) == 0) {
+					modifiers.remove(i);
+					modifiers.remove(i - 1);
+				} else {
+					if (modifiers.get(i) != -1)
+						modifiers.set(i, modifiers.get(i) - 1);
+					modifyVal(modifiers.get(i - 1));
+				}
+			}
+		}
+
+		void startTurn() {
+			if (turnReset)
+				currentVal = defaultVal;
+			else
+				modifyVal(modifyRate);
+			applyModifiers(startModifiers);
+		}
+
+		void endTurn() {
+			applyModifiers(endModifiers);
+		}
+
+		void startCombat() {
+			currentVal = defaultVal;
+			startModifiers.clear();
+			endModifiers.clear();
+		}
+
+	}
+
+}
@@ -0,0 +1,143 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the engine's hot paths: throughput(operations per second) and allocation rate(bytes allocated per operation) of card use, deck turns,
+ * attribute turns, damage, monster moves, card lookups and whole combats. Run it from the folder holding cards.txt; any arguments limit the run to
+ * the benchmarks whose names contain one of them. Allocation is measured with the HotSpot per-thread allocation counter, and is reported as -1 on
+ * JVMs that do not provide it.
+ * 
+ * Each benchmark is warmed up before it is measured, and its results are fed into a field that is read at the end, so that the JIT compiler
+ * cannot remove the work being measured.
+ */
+public class Benchmark {
+
+	private static final long WARMUP_NANOS = 1000000000L, MEASURE_NANOS = 2000000000L;
+	private static final int BATCH = 1000;
+
+	private static long blackhole;
+
+	/**
+	 * One operation to be measured.
+	 */
+	private interface Operation {
+		long run();
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 * @param args optionally, parts of the names of the benchmarks to run.
+	 */
+	public static void main(String[] args) {
+		CardsUtil.load();
+		GameRandom random = new GameRandom(1);
+
+		Card strike = CardsUtil.get("Strike");
+		Card flex = CardsUtil.get("Flex");
+		Entity user = new Entity("User", 1000000, 1000000, 0, 1000000, 1000000);
+		Entity target = new Entity("Target", 1000000, 1000000, 0, 0, 0);
+
+		Deck deck = new Deck(strike, strike, strike, strike, strike, CardsUtil.get("Defend"), CardsUtil.get("Defend"), CardsUtil.get("Bash"), flex, CardsUtil.get("Anger"));
+		deck.setRandom(random);
+		deck.startCombat();
+
+		Attribute attribute = new Attribute(0, -1);
+		attribute.addStartModifier(1, -1);
+		attribute.addEndModifier(1, -1);
+
+		Monster monster = Game.createMonsters()[1];
+		monster.setRandom(random);
+
+		Player player = new Player("Bot", 50, strike, strike, strike, CardsUtil.get("Defend"), CardsUtil.get("Bash"), flex);
+		CombatSimulator simulator = new CombatSimulator(player, Game.createMonsters()[1]);
+		GreedyController controller = new GreedyController();
+		SimulationResult result = new SimulationResult();
+
+		bench(args, "Card.use", () -> {
+			user.setEnergy(1000000);
+			target.setHealth(1000000);
+			return strike.use(user, target) ? 1 : 0;
+		});
+		bench(args, "Skill.use", () -> {
+			user.setEnergy(1000000);
+			user.startCombat();
+			return flex.use(user, target) ? 1 : 0;
+		});
+		bench(args, "Deck.startTurn+endTurn", () -> {
+			deck.startTurn();
+			deck.endTurn();
+			return deck.getDiscardPileSize();
+		});
+		bench(args, "Attribute.startTurn+endTurn", () -> {
+			attribute.startTurn();
+			attribute.endTurn();
+			return attribute.getCurrentVal();
+		});
+		bench(args, "Entity.damage", () -> {
+			target.setHealth(1000000);
+			target.damage(7);
+			return target.getHealth();
+		});
+		bench(args, "Monster.setMove", () -> {
+			monster.setMove();
+			return monster.getMove().getDamage();
+		});
+		bench(args, "CardsUtil.get", () -> CardsUtil.get("Monster BlAttack").getCost());
+		bench(args, "CardsUtil.randomP", () -> CardsUtil.randomP(random).getCost());
+		bench(args, "Full combat", () -> {
+			simulator.simulate(controller, random, result);
+			return result.getCombats();
+		});
+
+		if (blackhole == 42)
+			System.out.println();
+	}
+
+	/**
+	 * Private utility method, warms up, measures and reports one benchmark if its name was asked for.
+	 */
+	private static void bench(String[] filters, String name, Operation op) {
+		if (filters.length > 0) {
+			boolean wanted = false;
+			for (String f : filters)
+				wanted |= name.contains(f);
+			if (!wanted)
+				return;
+		}
+
+		measure(op, WARMUP_NANOS);
+		long bytesBefore = allocatedBytes();
+		long start = System.nanoTime();
+		long ops = measure(op, MEASURE_NANOS);
+		long elapsed = System.nanoTime() - start;
+		long bytes = allocatedBytes() - bytesBefore;
+
+		System.out.println(String.format("%-30s %,15.0f ops/s %12.1f B/op", name, ops * 1e9 / elapsed, bytesBefore < 0 ? -1.0 : (double) bytes / ops));
+	}
+
+	/**
+	 * Private utility method, runs an operation in batches until a given amount of time has passed.
+	 * @return the number of operations run.
+	 */
+	private static long measure(Operation op, long nanos) {
+		long ops = 0, end = System.nanoTime() + nanos, sum = 0;
+		do {
+			for (int i = 0; i < BATCH; i ++)
+				sum += op.run();
+			ops += BATCH;
+		} while (System.nanoTime() < end);
+		blackhole += sum;
+		return ops;
+	}
+
+	/**
+	 * Private utility method, reads how many bytes the current thread has allocated so far.
+	 * @return the number of bytes, or -1 if the JVM does not provide it.
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		return -1;
+	}
+
+}
@@ -1,55 +1,81 @@
+import java.util.Arrays;
+
 /**
- * Each Card object possesses the ability to heal, damage and block, and a cost, name, and description.
+ * Each Card object possesses the ability to heal, damage and block, any number of attribute Effects, and a cost, name, and description.
+ * Everything a card does is compiled into a short program of int operations when it is created, so playing it runs one tight loop with no
+ * string comparisons.
+ * A Card cannot be changed once it has been created, so a single Card object can safely be shared by every deck, hand and monster that holds it.
+ * A description that is not given is generated from the card's values the first time it is asked for, in the current CardText's wording.
  */
 public class Card {
 	
-	private int heal;
-	private int damage;
-	private int block;
-	private int cost;
-	private String name;
+	private final int heal;
+	private final int damage;
+	private final int block;
+	private final int cost;
+	private final String name;
+	private final Effect[] effects;
+	//Whether the card's damage and target effects hit every living enemy, rather than one.
+	private final boolean area;
+	//The compiled operations: an opcode followed by its operands.
+	private final int[] program;
+	//The given description, or null if it is generated.
 	private String description;
+	//The generated description and the wording it was rendered in, or null until it is first asked for.
+	private volatile Rendered rendered;
+
+	//Opcodes: HEAL amount, DAMAGE amount, BLOCK amount, and ATTRIBUTE kind(plus TARGET if on the target) current start end duration.
+	private static final int HEAL = 0, DAMAGE = 1, BLOCK = 2, ATTRIBUTE = 3;
+	private static final int TARGET = 1 << 8, KIND = TARGET - 1;
+	private static final Effect[] NO_EFFECTS = {};
 
 	/**
 	 * Creates the Card with the given amount of healing, damage, block and mana cost, as well as a name and description.
 	 */
 	public Card(int heal, int damage, int block, int cost, String name, String description) {
+		this(heal, damage, block, NO_EFFECTS, cost, name, description);
+	}
+
+	/**
+	 * Creates the Card with the given amount of healing, damage, block and mana cost, attribute effects, as well as a name and description.
+	 * @param effects the changes the card makes to attributes, applied in order after its healing, damage and block.
+	 * @param description the card's description, or null to generate one when first needed.
+	 */
+	public Card(int heal, int damage, int block, Effect[] effects, int cost, String name, String description) {
+		this(heal, damage, block, effects, false, cost, name, description);
+	}
+
+	/**
+	 * Creates the Card with the given amount of healing, damage, block and mana cost, attribute effects, as well as a name and description.
+	 * @param effects the changes the card makes to attributes, applied in order after its healing, damage and block.
+	 * @param area whether the card's damage and the effects on its target hit every living enemy(see use(Entity, Entity[])).
+	 * @param description the card's description, or null to generate one when first needed.
+	 */
+	public Card(int heal, int damage, int block, Effect[] effects, boolean area, int cost, String name, String description) {
 		this.heal = heal;
 		this.damage = damage;
 		this.block = block;
 		this.name = name;
 		this.cost = cost;
 		this.description = description;
+		this.effects = effects.length == 0 ? NO_EFFECTS : effects.clone();
+		this.area = area;
+		this.program = compile();
 	}
 
 	/**
-	 * Creates the Card with the given amount of healing, damage, block and mana cost, as well as a name. Automatically generates a description based on the given values.
+	 * Creates the Card with the given amount of healing, damage, block and mana cost, as well as a name. Its description is generated from the given values when first needed.
 	 */
 	public Card(int heal, int damage, int block, int cost, String name) {
-		this.heal = heal;
-		this.damage = damage;
-		this.block = block;
-		this.cost = cost;
-		this.name = name;
-		
-		description = String.format("Costs %d mana. ", cost);
-		if (heal < 0)
-			description += "Take " + -1*this.heal + " damage to yourself. ";
-		if (heal > 0)
-			description += String.format("Heal %d health to yourself. ", this.heal);
-
-		if (damage > 0)
-			description += String.format("Deal %d damage to an enemy. ", this.damage);
-
-		if (block > 0)
-			description += String.format("Block %d damage for the next turn. ", this.block);	
+		this(heal, damage, block, cost, name, null);
 	}
 
 	/**
-	 * @param aCard clones this Card object.
+	 * @param aCard clones this Card object. A generated description is shared with the original rather than rendered again.
 	 */
 	public Card(Card aCard) {
-		this(aCard.getHeal(), aCard.getDamage(), aCard.getBlock(), aCard.getCost(), aCard.getName(), aCard.getDescription());
+		this(aCard.getHeal(), aCard.getDamage(), aCard.getBlock(), aCard.effects, aCard.area, aCard.getCost(), aCard.getName(), null);
+		copyDescription(aCard);
 	}
 	
 	/**
@@ -60,10 +86,75 @@ public class Card {
 	}
 
 	/**
-	 * @return the Card's description.
+	 * @return the Card's description: the one it was given, or one generated in the current CardText's wording.
 	 */
 	public String getDescription() {
-		return this.description;
+		if (description != null)
+			return description;
+		CardText text = CardText.getCurrent();
+		Rendered r = rendered;
+		if (r == null || r.text != text)
+			rendered = r = new Rendered(text, describe(text, new StringBuilder(64)).toString());
+		return r.description;
+	}
+
+	/**
+	 * Generates the Card's description in a given wording, without caching it.
+	 * @param text the wording to use.
+	 * @return the Card's description: the one it was given, or one generated from its values.
+	 */
+	public String getDescription(CardText text) {
+		return description != null ? description : describe(text, new StringBuilder(64)).toString();
+	}
+
+	/**
+	 * Appends the generated description of the Card. Subclasses with more effects override this to describe them.
+	 * @param text the wording to use.
+	 * @param s the builder to append to.
+	 * @return the builder.
+	 */
+	protected StringBuilder describe(CardText text, StringBuilder s) {
+		text.append(s, CardText.COST, cost, null);
+		appendBasics(text, s, 0);
+		appendEffects(text, s);
+		return s;
+	}
+
+	/**
+	 * Appends the healing, damage and block parts of the generated description.
+	 * @param text the wording to use.
+	 * @param s the builder to append to.
+	 * @param offset 0 for the plain templates, or CardText.ONCE for the ones used alongside attribute effects.
+	 */
+	protected void appendBasics(CardText text, StringBuilder s, int offset) {
+		if (heal < 0)
+			text.append(s, CardText.SELF_DAMAGE + offset, -heal, null);
+		if (heal > 0)
+			text.append(s, CardText.HEAL + offset, heal, null);
+		if (damage > 0)
+			text.append(s, area ? CardText.DAMAGE_ALL : CardText.DAMAGE + offset, damage, null);
+		if (block > 0)
+			text.append(s, CardText.BLOCK + offset, block, null);
+	}
+
+	/**
+	 * Appends the parts of the generated description for each attribute effect: its amounts, then how long it lasts.
+	 * @param text the wording to use.
+	 * @param s the builder to append to.
+	 */
+	protected void appendEffects(CardText text, StringBuilder s) {
+		for (Effect e : effects) {
+			//The duration templates end a description, so the next effect needs a space after them.
+			if (s.length() > 0 && s.charAt(s.length() - 1) != ' ')
+				s.append(' ');
+			if (e.getCurrent() != 0)
+				text.append(s, CardText.CURRENT, e.getCurrent(), e.getAttribute());
+			if (e.getStart() != 0)
+				text.append(s, CardText.START, e.getStart(), e.getAttribute());
+			if (e.getEnd() != 0)
+				text.append(s, CardText.END, e.getEnd(), e.getAttribute());
+			text.append(s, e.getDuration() == -1 ? CardText.PERMANENT : CardText.DURATION, e.getDuration(), null);
+		}
 	}
 
 	/**
@@ -93,36 +184,205 @@ public class Card {
 	public int getCost() {
 		return this.cost;
 	}
+
+	/**
+	 * @return whether the Card's damage and the effects on its target hit every living enemy.
+	 */
+	public boolean isArea() {
+		return this.area;
+	}
+
+	/**
+	 * @return the Card's attribute effects, in the order they are applied.
+	 */
+	public Effect[] getEffects() {
+		return effects.length == 0 ? NO_EFFECTS : effects.clone();
+	}
 	
 	/**
-	* Set a card's description
+	* Set a card's description. Only used by subclasses while they are being constructed, since Cards are shared once created.
 	* @param description the string that the card's description will be changed to
 	*/
-	public void setDescription(String description) {
+	protected void setDescription(String description) {
 		this.description = description;
 	}
+
+	/**
+	 * Takes the description of the Card this one is a copy of: its given description, or its generated one if it has been rendered already.
+	 * Only used by copy constructors.
+	 * @param original the Card being copied.
+	 */
+	protected void copyDescription(Card original) {
+		description = original.description;
+		rendered = original.rendered;
+	}
+
+	/**
+	 * A generated description and the wording it was rendered in, replaced together.
+	 */
+	private static final class Rendered {
+		final CardText text;
+		final String description;
+
+		Rendered(CardText text, String description) {
+			this.text = text;
+			this.description = description;
+		}
+	}
 	
 
 	/**
 	 * Attempts to use the Card on a given user and target. Returns true if the user has enough mana and the use is successful, otherwise returns false.
-	 * Applies additional modifiers on the card's effects based on the user's values for strength, weak, dexterity, and frail.
+	 * Applies additional modifiers on the card's effects based on the user's values for strength, weak, dexterity, and frail. A card the user cannot
+	 * afford does nothing at all.
 	 * @param user the Entity using the card.
 	 * @param target the Entity the user is targeting with the card.
 	 * @return whether or not the user had enough mana for the Card to be used.
 	 */
 	public boolean use(Entity user, Entity target) {
-		if (user.getEnergy() >= this.cost) {
-			if (heal != 0) 
-				user.heal(heal);	
-			if (damage > 0)
-				target.damage((int) ((damage + user.getStrength().getCurrentVal()) * (user.getWeak().equals(0) ? 1 : 0.75)));	
-			if (block > 0) 
-				user.block((int) ((block + user.getDexterity().getCurrentVal()) * (user.getFrail().equals(0) ? 1 : 0.75)));
-			user.useEnergy(cost);
-			return true;
-		} else {
+		return run(user, target, null);
+	}
+
+	/**
+	 * Attempts to use the Card on a group of enemies, as use(Entity, Entity) does on one. The card's damage and the effects on its target hit every
+	 * target still alive, each worked out from the user's values once.
+	 * @param user the Entity using the card.
+	 * @param targets the enemies the card hits.
+	 * @return whether or not the user had enough mana for the Card to be used.
+	 */
+	public boolean use(Entity user, Entity[] targets) {
+		return run(user, null, targets);
+	}
+
+	/**
+	 * Uses the Card on a target, except that its damage is added to the damage pending rather than dealt, so that the damage of several cards can be
+	 * dealt together(see Encounter.act). The damage is worked out, including the target's vulnerability, before any of the card's effects are applied,
+	 * as it would be by use. A card the user cannot afford does nothing at all, and deals no damage. A hit of 0 or less(from negative strength) counts
+	 * as no damage, as it does when dealt by use, so it never takes away from the damage of other hits dealt with it. Since the target's armour
+	 * decides how much of the damage reaches its health, the pending damage is taken before any effect on the target's armour is applied.
+	 * @param user the Entity using the card.
+	 * @param target the Entity the user is targeting with the card.
+	 * @param pending the damage the target should already take from earlier hits dealt together with this one.
+	 * @return the damage the target should take, including whatever is still pending.
+	 */
+	int attack(Entity user, Entity target, int pending) {
+		if (user.getEnergy() < cost)
+			return pending;
+		int[] p = program;
+		for (int pc = 0; pc < p.length; pc += p[pc] == ATTRIBUTE ? 6 : 2) {
+			if (p[pc] == DAMAGE) {
+				pending += Math.max(0, target.getStore().vulnerable(target.getSlot(), damage(user, p[pc + 1])));
+				continue;
+			}
+			if (p[pc] == ATTRIBUTE && p[pc + 1] == (EntityStore.ARMOUR | TARGET)) {
+				target.getStore().takeDamage(target.getSlot(), pending);
+				pending = 0;
+			}
+			apply(p, pc, user, target, null);
+		}
+		user.useEnergy(cost);
+		return pending;
+	}
+
+	/**
+	 * Private utility method, runs the card's program for use: on one target, or on every living one of a group if targets is not null.
+	 */
+	private boolean run(Entity user, Entity target, Entity[] targets) {
+		if (user.getEnergy() < cost)
 			return false;
+		int[] p = program;
+		for (int pc = 0; pc < p.length; pc += p[pc] == ATTRIBUTE ? 6 : 2)
+			apply(p, pc, user, target, targets);
+		user.useEnergy(cost);
+		return true;
+	}
+
+	/**
+	 * Private utility method, carries out the operation at pc.
+	 */
+	private void apply(int[] p, int pc, Entity user, Entity target, Entity[] targets) {
+		switch (p[pc]) {
+			case HEAL:
+				user.heal(p[pc + 1]);
+				break;
+			case DAMAGE:
+				int amount = damage(user, p[pc + 1]);
+				if (targets == null) {
+					target.damage(amount);
+				} else {
+					for (Entity t : targets)
+						if (t.alive())
+							t.damage(amount);
+				}
+				break;
+			case BLOCK:
+				EntityStore store = user.getStore();
+				int row = user.getSlot() * EntityStore.ATTRIBUTES;
+				user.block((int) ((p[pc + 1] + store.currentVal[row + EntityStore.DEXTERITY]) * (store.currentVal[row + EntityStore.FRAIL] == 0 ? 1 : 0.75)));
+				break;
+			case ATTRIBUTE:
+				if ((p[pc + 1] & TARGET) == 0) {
+					modify(p, pc, user);
+				} else if (targets == null) {
+					modify(p, pc, target);
+				} else {
+					for (Entity t : targets)
+						if (t.alive())
+							modify(p, pc, t);
+				}
+				break;
+			default:
+				throw new IllegalStateException("unknown operation " + p[pc] + " in " + name);
+		}
+	}
+
+	/**
+	 * Private utility method, the damage the user deals with a given base amount: increased by their strength, and reduced by a quarter if they are weak.
+	 */
+	private static int damage(Entity user, int amount) {
+		EntityStore store = user.getStore();
+		int row = user.getSlot() * EntityStore.ATTRIBUTES;
+		return (int) ((amount + store.currentVal[row + EntityStore.STRENGTH]) * (store.currentVal[row + EntityStore.WEAK] == 0 ? 1 : 0.75));
+	}
+
+	/**
+	 * Private utility method, applies the ATTRIBUTE operation at pc to an entity.
+	 */
+	private static void modify(int[] p, int pc, Entity e) {
+		int attribute = e.getSlot() * EntityStore.ATTRIBUTES + (p[pc + 1] & KIND);
+		EntityStore s = e.getStore();
+		s.addModifier(attribute * 2, p[pc + 3], p[pc + 5]);
+		s.addModifier(attribute * 2 + 1, p[pc + 4], p[pc + 5]);
+		s.modifyAttribute(attribute, p[pc + 2]);
+	}
+
+	/**
+	 * Private utility method, compiles the card's healing, damage, block and effects into its program, leaving out anything that would do nothing.
+	 */
+	private int[] compile() {
+		int[] p = new int[6 + 6 * effects.length];
+		int n = 0;
+		if (heal != 0) {
+			p[n ++] = HEAL;
+			p[n ++] = heal;
+		}
+		if (damage > 0) {
+			p[n ++] = DAMAGE;
+			p[n ++] = damage;
+		}
+		if (block > 0) {
+			p[n ++] = BLOCK;
+			p[n ++] = block;
+		}
+		for (Effect e : effects) {
+			p[n ++] = ATTRIBUTE;
+			p[n ++] = e.getKind() | (e.isOnTarget() ? TARGET : 0);
+			p[n ++] = e.getCurrent();
+			p[n ++] = e.getStart();
+			p[n ++] = e.getEnd();
+			p[n ++] = e.getDuration();
 		}
+		return Arrays.copyOf(p, n);
 	}
 	
 }
@@ -0,0 +1,153 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles the text card file into a compact binary catalog, and reads such a catalog back by memory-mapping it. cards.txt stays the source of truth;
+ * the catalog only exists so that a program can start without parsing text. Run this class's main method after editing cards.txt to rebuild cards.bin.
+ * 
+ * Layout: a header of magic number (int), format version (short) and card count (int), followed by one record per card. Each record is a type byte
+ * (basic, skill or area), the card's name as a length-prefixed UTF-8 string, then heal, damage, block and cost (ints), then the number of attribute
+ * effects (unsigned byte), each an EntityStore kind (byte), whether it is on the target (boolean) and the current, start, end and duration modifiers
+ * (ints). A skill record has at least one effect.
+ */
+public class CardCatalog {
+
+	public static final int MAGIC = 0x43415244;
+	public static final short VERSION = 3;
+
+	private static final byte BASIC = 0, SKILL = 1, AREA = 2;
+	//The smallest possible record: a type byte, an empty name, four ints and no effects.
+	private static final int MIN_RECORD = 1 + 2 + 4 * 4 + 1;
+
+	/**
+	 * Compiles the text card file into cards.bin.
+	 * @param args optionally, the text file and catalog file to use instead of cards.txt and cards.bin.
+	 */
+	public static void main(String[] args) throws IOException {
+		String text = args.length > 0 ? args[0] : CardsUtil.CARD_FILE;
+		String catalog = args.length > 1 ? args[1] : CardsUtil.CATALOG_FILE;
+		System.out.println("Compiled " + compile(text, catalog) + " cards from " + text + " into " + catalog);
+	}
+
+	/**
+	 * Parses a text card file and writes every valid card to a binary catalog. Malformed lines are reported and left out, exactly as CardsUtil.load does.
+	 * @param textFile the card file to read.
+	 * @param catalogFile the catalog file to create or overwrite.
+	 * @return the number of cards written.
+	 */
+	public static int compile(String textFile, String catalogFile) throws IOException {
+		return write(CardsUtil.loadText(textFile), catalogFile);
+	}
+
+	/**
+	 * Writes a list of cards to a binary catalog.
+	 * @param cards the cards to write, in order.
+	 * @param catalogFile the catalog file to create or overwrite.
+	 * @return the number of cards written.
+	 * @throws IOException if the file cannot be written, or a card cannot be held in a catalog; the partly written file is then deleted, so that it is
+	 * never loaded in place of the text file.
+	 */
+	public static int write(List<Card> cards, String catalogFile) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(catalogFile)))) {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(cards.size());
+			for (Card c : cards) {
+				out.writeByte(c instanceof Skill ? SKILL : c.isArea() ? AREA : BASIC);
+				writeString(out, c.getName());
+				out.writeInt(c.getHeal());
+				out.writeInt(c.getDamage());
+				out.writeInt(c.getBlock());
+				out.writeInt(c.getCost());
+				Effect[] effects = c.getEffects();
+				if (effects.length > 255)
+					throw new IOException(c.getName() + " has more than 255 effects");
+				out.writeByte(effects.length);
+				for (Effect e : effects) {
+					out.writeByte(e.getKind());
+					out.writeBoolean(e.isOnTarget());
+					out.writeInt(e.getCurrent());
+					out.writeInt(e.getStart());
+					out.writeInt(e.getEnd());
+					out.writeInt(e.getDuration());
+				}
+			}
+		} catch (IOException e) {
+			Files.deleteIfExists(Paths.get(catalogFile));
+			throw e;
+		}
+		return cards.size();
+	}
+
+	/**
+	 * Memory-maps a binary catalog and creates its cards.
+	 * @param catalogFile the catalog to read.
+	 * @return every card in the catalog, in order.
+	 * @throws IOException if the file cannot be read, is not a catalog, or was written by a different version.
+	 */
+	public static ArrayList<Card> read(String catalogFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(catalogFile), StandardOpenOption.READ)) {
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			ArrayList<Card> cards;
+			try {
+				if (in.remaining() < 10 || in.getInt() != MAGIC)
+					throw new IOException("not a card catalog");
+				short version = in.getShort();
+				if (version != VERSION)
+					throw new IOException("catalog version " + version + " is not supported (expected " + VERSION + ")");
+
+				int count = in.getInt();
+				if (count < 0 || count > in.remaining() / MIN_RECORD)
+					throw new IOException("catalog holds " + count + " cards in " + in.remaining() + " bytes");
+				cards = new ArrayList<Card>(count);
+				for (int i = 0; i < count; i ++) {
+					byte type = in.get();
+					String name = readString(in);
+					int heal = in.getInt(), damage = in.getInt(), block = in.getInt(), cost = in.getInt();
+					Effect[] effects = new Effect[in.get() & 0xFF];
+					for (int e = 0; e < effects.length; e ++)
+						effects[e] = new Effect(in.get(), in.get() != 0, in.getInt(), in.getInt(), in.getInt(), in.getInt());
+					if (type == SKILL)
+						cards.add(new Skill(heal, damage, block, effects, cost, name, null));
+					else
+						cards.add(new Card(heal, damage, block, effects, type == AREA, cost, name, null));
+				}
+			} catch (RuntimeException e) {
+				throw new IOException("catalog is truncated or corrupt", e);
+			}
+			return cards;
+		}
+	}
+
+	/**
+	 * Private utility method, writes a String as an unsigned short byte count followed by its UTF-8 bytes, failing if it is too long for the count.
+	 */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xFFFF)
+			throw new IOException("\"" + s.substring(0, 20) + "...\" takes " + bytes.length + " bytes, more than the 65535 a catalog can hold");
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Private utility method, reads a String written by writeString.
+	 */
+	private static String readString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getShort() & 0xFFFF];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
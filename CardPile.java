@@ -0,0 +1,193 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pile of card ids, used by Deck to store its piles as primitive ints. The ids are kept in a circular buffer, so taking the top card, adding to the
+ * bottom and shuffling in place never shift or copy the rest of the pile. Index 0 is always the top of the pile(the next card to be taken).
+ * A pile can share its buffer with another pile(see shareFrom); the buffer is only copied once one of them changes its contents.
+ */
+class CardPile {
+
+	private int[] ids;
+	private int head, size;
+	//Whether the buffer may also be used by another pile, in which case it must be copied before it is written to.
+	private boolean shared;
+
+	/**
+	 * Creates an empty pile.
+	 */
+	CardPile() {
+		ids = new int[8];
+	}
+
+	/**
+	 * Copies a given pile.
+	 * @param p the pile to copy.
+	 */
+	CardPile(CardPile p) {
+		ids = new int[Math.max(8, p.ids.length)];
+		for (int i = 0; i < p.size; i ++)
+			ids[i] = p.get(i);
+		size = p.size;
+	}
+
+	/**
+	 * Writes the pile: its size, then each id from the top of the pile down.
+	 * @param out where to write it.
+	 */
+	void write(DataOutput out) throws IOException {
+		out.writeInt(size);
+		for (int i = 0; i < size; i ++)
+			out.writeInt(get(i));
+	}
+
+	/**
+	 * Replaces the contents of the pile with a pile written by write.
+	 * @param in where to read the pile from.
+	 * @param limit ids must be below this.
+	 * @throws IOException if the pile cannot be read or holds an id that is out of range.
+	 */
+	void read(DataInput in, int limit) throws IOException {
+		clear();
+		for (int n = in.readInt(); n > 0; n --) {
+			int id = in.readInt();
+			if (id < 0 || id >= limit)
+				throw new IOException("card id " + id + " is out of range");
+			add(id);
+		}
+	}
+
+	/**
+	 * Makes this pile hold the same cards as another pile, sharing that pile's buffer instead of copying it.
+	 * @param p the pile to share.
+	 */
+	void shareFrom(CardPile p) {
+		ids = p.ids;
+		head = p.head;
+		size = p.size;
+		shared = p.shared = true;
+	}
+
+	/**
+	 * @return the number of cards in the pile.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param index position in the pile, 0 being the top.
+	 * @return the card id at the given position.
+	 */
+	int get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return ids[(head + index) % ids.length];
+	}
+
+	/**
+	 * @param id add this card id to the bottom of the pile.
+	 */
+	void add(int id) {
+		own();
+		if (size == ids.length)
+			grow(size + 1);
+		ids[(head + size) % ids.length] = id;
+		size ++;
+	}
+
+	/**
+	 * @param p add every card id in this pile to the bottom of the pile, keeping their order.
+	 */
+	void addAll(CardPile p) {
+		own();
+		if (size + p.size > ids.length)
+			grow(size + p.size);
+		for (int i = 0; i < p.size; i ++)
+			ids[(head + size + i) % ids.length] = p.get(i);
+		size += p.size;
+	}
+
+	/**
+	 * Removes and returns the top card id.
+	 * @return the card id that was at the top of the pile.
+	 */
+	int poll() {
+		if (size == 0)
+			throw new IndexOutOfBoundsException("Index: 0, Size: 0");
+		int id = ids[head];
+		head = (head + 1) % ids.length;
+		size --;
+		return id;
+	}
+
+	/**
+	 * Removes the card id at a given position, moving the cards below it up by one.
+	 * @param index position in the pile, 0 being the top.
+	 * @return the card id that was removed.
+	 */
+	int remove(int index) {
+		int id = get(index);
+		own();
+		for (int i = index; i < size - 1; i ++)
+			ids[(head + i) % ids.length] = ids[(head + i + 1) % ids.length];
+		size --;
+		return id;
+	}
+
+	/**
+	 * Empties the pile.
+	 */
+	void clear() {
+		head = 0;
+		size = 0;
+	}
+
+	/**
+	 * Randomly reorders the pile in place.
+	 * @param random the generator to shuffle with.
+	 */
+	void shuffle(GameRandom random) {
+		own();
+		for (int i = size - 1; i > 0; i --) {
+			int j = random.nextInt(i + 1);
+			int a = (head + i) % ids.length, b = (head + j) % ids.length;
+			int temp = ids[a];
+			ids[a] = ids[b];
+			ids[b] = temp;
+		}
+	}
+
+	/**
+	 * Private utility method, copies the buffer if it is shared, so that it can be written to.
+	 */
+	private void own() {
+		if (shared) {
+			ids = ids.clone();
+			shared = false;
+		}
+	}
+
+	/**
+	 * Private utility method, enlarges the buffer to hold at least the given number of ids, unwrapping the pile so that it starts at index 0.
+	 */
+	private void grow(int minCapacity) {
+		int[] grown = new int[Math.max(minCapacity, ids.length * 2)];
+		for (int i = 0; i < size; i ++)
+			grown[i] = ids[(head + i) % ids.length];
+		ids = grown;
+		head = 0;
+		shared = false;
+	}
+
+	@Override
+	public String toString() {
+		int[] copy = new int[size];
+		for (int i = 0; i < size; i ++)
+			copy[i] = get(i);
+		return Arrays.toString(copy);
+	}
+
+}
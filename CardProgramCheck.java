@@ -0,0 +1,167 @@
+/**
+ * Checks the int programs Cards compile to against the way cards were used before they were compiled: heal, then damage increased by strength and
+ * reduced by weak, then block increased by dexterity and reduced by frail, then each attribute effect as a start modifier, an end modifier and a
+ * change to the current value, all through the public Entity and Attribute methods. A card the user cannot afford does nothing.
+ *
+ * Every card of cards.txt and a number of random cards, including area cards and every attribute on either side, are used on random pairs of
+ * Entities, and on random groups for area cards; the result and the state(hash, health and energy) of every Entity must match the reference. Run it
+ * from the folder holding cards.txt. Prints a summary if every use matched, and otherwise fails with an IllegalStateException naming the card and trial.
+ */
+public class CardProgramCheck {
+
+	private static final int TRIALS = 500;
+
+	/**
+	 * Runs the check.
+	 * @param args optionally, the number of random cards to check besides those of cards.txt(2000 by default).
+	 */
+	public static void main(String[] args) {
+		CardsUtil.load();
+		int randomCards = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		GameRandom random = new GameRandom(1);
+		int uses = 0;
+
+		for (Card card : CardsUtil.getAll())
+			uses += check(card, random);
+		for (int i = 0; i < randomCards; i ++)
+			uses += check(randomCard(random, i), random);
+		System.out.println(CardsUtil.getAll().size() + " cards from " + CardsUtil.CARD_FILE + " and " + randomCards + " random cards, " + uses
+				+ " uses: every compiled program matched the reference");
+	}
+
+	/**
+	 * Private utility method, uses a card on random Entities TRIALS times, both compiled and through the reference, and compares the results.
+	 * @return the number of uses checked.
+	 */
+	private static int check(Card card, GameRandom random) {
+		for (int trial = 0; trial < TRIALS; trial ++) {
+			Entity user = randomEntity(random, "User");
+			Entity[] targets = new Entity[card.isArea() ? 1 + random.nextInt(3) : 1];
+			for (int i = 0; i < targets.length; i ++)
+				targets[i] = randomEntity(random, "Target " + i);
+
+			Entity expectedUser = new Entity(user);
+			Entity[] expectedTargets = new Entity[targets.length];
+			for (int i = 0; i < targets.length; i ++)
+				expectedTargets[i] = new Entity(targets[i]);
+
+			boolean used = card.isArea() ? card.use(user, targets) : card.use(user, targets[0]);
+			boolean expected = use(card, expectedUser, expectedTargets);
+			if (used != expected)
+				throw failure(card, trial, "use returned " + used + " instead of " + expected);
+			compare(card, trial, expectedUser, user);
+			for (int i = 0; i < targets.length; i ++)
+				compare(card, trial, expectedTargets[i], targets[i]);
+		}
+		return TRIALS;
+	}
+
+	/**
+	 * Private utility method, uses a card the way it was used before cards were compiled.
+	 * @param targets the target, or for an area card every target; the damage and effects on the target hit those still alive.
+	 */
+	private static boolean use(Card card, Entity user, Entity[] targets) {
+		if (user.getEnergy() < card.getCost())
+			return false;
+		if (card.getHeal() != 0)
+			user.heal(card.getHeal());
+		if (card.getDamage() > 0) {
+			int damage = (int) ((card.getDamage() + user.getStrength().getCurrentVal()) * (user.getWeak().equals(0) ? 1 : 0.75));
+			for (Entity t : targets)
+				if (t.alive() || !card.isArea())
+					t.damage(damage);
+		}
+		if (card.getBlock() > 0)
+			user.block((int) ((card.getBlock() + user.getDexterity().getCurrentVal()) * (user.getFrail().equals(0) ? 1 : 0.75)));
+		user.useEnergy(card.getCost());
+		for (Effect e : card.getEffects()) {
+			if (!e.isOnTarget()) {
+				modify(attribute(user, e.getKind()), e);
+				continue;
+			}
+			for (Entity t : targets)
+				if (t.alive() || !card.isArea())
+					modify(attribute(t, e.getKind()), e);
+		}
+		return true;
+	}
+
+	/**
+	 * Private utility method, applies an effect to an attribute as Skill.use did.
+	 */
+	private static void modify(Attribute a, Effect e) {
+		a.addStartModifier(e.getStart(), e.getDuration());
+		a.addEndModifier(e.getEnd(), e.getDuration());
+		a.modifyVal(e.getCurrent());
+	}
+
+	/**
+	 * Private utility method, gets an Entity's attribute of a given EntityStore kind.
+	 */
+	private static Attribute attribute(Entity e, int kind) {
+		switch (kind) {
+			case EntityStore.STRENGTH:
+				return e.getStrength();
+			case EntityStore.DEXTERITY:
+				return e.getDexterity();
+			case EntityStore.WEAK:
+				return e.getWeak();
+			case EntityStore.FRAIL:
+				return e.getFrail();
+			case EntityStore.VULNERABLE:
+				return e.getVulnerable();
+			case EntityStore.REGENERATION:
+				return e.getRegeneration();
+			case EntityStore.POISON:
+				return e.getPoison();
+			case EntityStore.CONSTRICTED:
+				return e.getConstricted();
+			default:
+				return e.getArmour();
+		}
+	}
+
+	/**
+	 * Private utility method, creates an Entity with random health, energy, attribute values and modifiers. Some are already defeated.
+	 */
+	private static Entity randomEntity(GameRandom random, String name) {
+		Entity e = new Entity(name, 60, random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(60), random.nextInt(12), 3, random.nextInt(5));
+		for (int kind = 0; kind < EntityStore.ATTRIBUTES; kind ++) {
+			Attribute a = attribute(e, kind);
+			if (random.nextInt(2) == 0)
+				a.modifyVal(random.nextInt(9) - 4);
+			if (random.nextInt(4) == 0)
+				a.addStartModifier(random.nextInt(5) - 2, random.nextInt(4) - 1);
+		}
+		return e;
+	}
+
+	/**
+	 * Private utility method, creates a random card: any heal, damage, block and cost, and up to three effects on any attribute and either side.
+	 */
+	private static Card randomCard(GameRandom random, int number) {
+		Effect[] effects = new Effect[random.nextInt(4)];
+		for (int i = 0; i < effects.length; i ++)
+			effects[i] = new Effect(random.nextInt(EntityStore.ATTRIBUTES), random.nextInt(2) == 0, random.nextInt(7) - 3, random.nextInt(7) - 3,
+					random.nextInt(7) - 3, random.nextInt(4) - 1);
+		return new Card(random.nextInt(7) - 1, random.nextInt(12) - 2, random.nextInt(10) - 2, effects, random.nextInt(4) == 0, random.nextInt(4),
+				"Random " + number, null);
+	}
+
+	/**
+	 * Private utility method, fails if an Entity's state differs from the reference's.
+	 */
+	private static void compare(Card card, int trial, Entity expected, Entity actual) {
+		if (expected.getHash() != actual.getHash() || expected.getHealth() != actual.getHealth() || expected.getEnergy() != actual.getEnergy())
+			throw failure(card, trial, actual.getName() + " has health " + actual.getHealth() + " and energy " + actual.getEnergy() + " instead of "
+					+ expected.getHealth() + " and " + expected.getEnergy() + ", or different attributes");
+	}
+
+	/**
+	 * Private utility method, creates the exception for a mismatch.
+	 */
+	private static IllegalStateException failure(Card card, int trial, String problem) {
+		return new IllegalStateException(card.getName() + ", trial " + trial + ": " + problem);
+	}
+
+}
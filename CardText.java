@@ -0,0 +1,115 @@
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+
+/**
+ * The wording of generated card descriptions: one template per part of a description, such as its cost or the damage it deals. A template's
+ * {value} is replaced by the part's number, and {attribute} by the name of the attribute a Skill changes. Cards render their descriptions from the
+ * current CardText the first time they are asked for them(see Card.getDescription), so creating a card never formats any text.
+ *
+ * Alternate wordings or languages are loaded from properties files, keyed by the names in KEYS. Any key a file leaves out keeps the default English
+ * wording. Templates are used exactly as written, so each should end with the space that separates it from the next part.
+ */
+public final class CardText {
+
+	/** The template keys, in the order they appear in a description. */
+	public static final String[] KEYS = {"cost", "selfDamage", "heal", "damage", "block", "selfDamage.once", "heal.once", "damage.once", "block.once",
+			"current", "start", "end", "permanent", "duration", "damage.all"};
+
+	static final int COST = 0, SELF_DAMAGE = 1, HEAL = 2, DAMAGE = 3, BLOCK = 4, ONCE = 4, CURRENT = 9, START = 10, END = 11, PERMANENT = 12,
+			DURATION = 13, DAMAGE_ALL = 14;
+
+	private static final String[] DEFAULTS = {"Costs {value} mana. ", "Take {value} damage to yourself. ", "Heal {value} health to yourself. ",
+			"Deal {value} damage to an enemy. ", "Block {value} damage for the next turn. ", "Take {value} damage to yourself once. ",
+			"Heal {value} health to yourself once. ", "Deal {value} damage to an enemy once. ", "Block {value} damage for the next turn once. ",
+			"Get/Afflict {value} {attribute} this turn. ", "Get/Afflict {value} {attribute} at the beginning of your turn. ",
+			"Get/Afflict {value} {attribute} at the end of your turn. ", "Effect lasts until the end of combat.", "Effect lasts for {value} turn(s).",
+			"Deal {value} damage to all enemies. "};
+
+	/** The default English wording. */
+	public static final CardText ENGLISH = new CardText(DEFAULTS.clone());
+
+	private static volatile CardText current = ENGLISH;
+
+	private final String[] templates;
+
+	/**
+	 * Private constructor, use ENGLISH or load.
+	 */
+	private CardText(String[] templates) {
+		this.templates = templates;
+	}
+
+	/**
+	 * Reads a wording from a properties file.
+	 * @param fileName the file to read.
+	 * @return the wording, with the default English template for any key the file leaves out.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static CardText load(String fileName) throws IOException {
+		Properties p = new Properties();
+		try (Reader in = new FileReader(fileName)) {
+			p.load(in);
+		}
+		String[] templates = new String[KEYS.length];
+		for (int i = 0; i < KEYS.length; i ++)
+			templates[i] = p.getProperty(KEYS[i], DEFAULTS[i]);
+		return new CardText(templates);
+	}
+
+	/**
+	 * @return the wording cards render their descriptions with.
+	 */
+	public static CardText getCurrent() {
+		return current;
+	}
+
+	/**
+	 * Changes the wording of every generated card description. Descriptions already rendered with another wording are rendered again the next time
+	 * they are asked for.
+	 * @param text the new wording.
+	 */
+	public static void setCurrent(CardText text) {
+		current = text;
+	}
+
+	/**
+	 * @param key one of KEYS.
+	 * @return the template for the key, or null if there is no such key.
+	 */
+	public String getTemplate(String key) {
+		for (int i = 0; i < KEYS.length; i ++)
+			if (KEYS[i].equals(key))
+				return templates[i];
+		return null;
+	}
+
+	/**
+	 * Appends a template with its placeholders replaced.
+	 * @param s the builder to append to.
+	 * @param template the index of the template in KEYS.
+	 * @param value the number to replace {value} with.
+	 * @param attribute the name to replace {attribute} with.
+	 * @return the builder.
+	 */
+	StringBuilder append(StringBuilder s, int template, int value, String attribute) {
+		String t = templates[template];
+		int from = 0;
+		for (int open = t.indexOf('{'); open >= 0; open = t.indexOf('{', from)) {
+			s.append(t, from, open);
+			if (t.startsWith("{value}", open)) {
+				s.append(value);
+				from = open + 7;
+			} else if (t.startsWith("{attribute}", open)) {
+				s.append(attribute);
+				from = open + 11;
+			} else {
+				s.append('{');
+				from = open + 1;
+			}
+		}
+		return s.append(t, from, t.length());
+	}
+
+}
@@ -1,46 +1,169 @@
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 
 /**
  * Holds and allows access to all Card objects. the load method must be called exactly once for this classes' other methods to be used without error.
+ * Once loaded, the cards are indexed by name and split into player and monster pools, so lookups and random picks take constant time.
+ * The loaded registry is never modified, and is published as a whole, so any number of threads(such as the sessions of a GameServer) may use it at once.
  */
 public class CardsUtil {
 
-	private static ArrayList<Card> cards;
+	public static final String CARD_FILE = "cards.txt";
+	public static final String CATALOG_FILE = "cards.bin";
+	public static final String TEXT_FILE = "card-text.properties";
+
+	private static volatile Registry registry;
 	
 	/**
 	 * Initializes all Card objects as found in cards.txt. This method must be run once before other methods in Cards are used.
+	 * If a compiled catalog (cards.bin, see CardCatalog) exists and is at least as new as cards.txt, it is used instead of parsing the text file.
+	 * If card-text.properties exists, generated card descriptions use its wording(see CardText).
 	 * basic cards are cards that only do damage,heal and/or block.
+	 * area cards are basic cards whose damage and effects on the target hit every enemy in an Encounter.
 	 * skill cards are cards that only change the attributes of the user or the target.
 	 * skillAction cards are cards that do basic card functions (damage,heal,block) AND change the attributes of the user or target.
 	 */
 	public static void load () {
-		cards = new ArrayList<Card>();
-		try {
-			Scanner read = new Scanner(new File("cards.txt"));
-			while (read.hasNextLine()) {
-				String[] traits = read.nextLine().split(",");
-				
-				if (traits[0].equals("basic")) {
-					cards.add(new Card(Integer.parseInt(traits[2]), Integer.parseInt(traits[3]), Integer.parseInt(traits[4]), Integer.parseInt(traits[5]), traits[1]));
-				}
-				else if (traits[0].equals("skill")){
-					cards.add(new Skill(traits[2], Integer.parseInt(traits[3]), Integer.parseInt(traits[4]), Integer.parseInt(traits[5]),
-						Integer.parseInt(traits[6]),Integer.parseInt(traits[7]), traits[1]));				
-				}
-				else if (traits[0].equals("skillAction")){
-					cards.add(new Skill(Integer.parseInt(traits[2]), Integer.parseInt(traits[3]), Integer.parseInt(traits[4]),
-						traits[5], Integer.parseInt(traits[6]), Integer.parseInt(traits[7]), Integer.parseInt(traits[8]),
-							Integer.parseInt(traits[9]),Integer.parseInt(traits[10]), traits[1]));
+		File text = new File(CARD_FILE), catalog = new File(CATALOG_FILE);
+		ArrayList<Card> loaded = null;
+		if (catalog.isFile() && catalog.lastModified() >= text.lastModified()) {
+			try {
+				loaded = CardCatalog.read(CATALOG_FILE);
+			} catch (IOException e) {
+				System.err.println(CATALOG_FILE + ": " + e.getMessage() + ", falling back to " + CARD_FILE);
+			}
+		}
+		if (loaded == null)
+			loaded = loadText(CARD_FILE);
+		if (new File(TEXT_FILE).isFile()) {
+			try {
+				CardText.setCurrent(CardText.load(TEXT_FILE));
+			} catch (IOException e) {
+				System.err.println(TEXT_FILE + ": " + e.getMessage() + ", using the default wording");
+			}
+		}
+		index(loaded);
+	}
+	
+	/**
+	 * Parses every line of a card file. A malformed line is reported on System.err with its line number and skipped; the rest of the file is still read.
+	 * @param fileName the card file to read.
+	 * @return every card that was successfully parsed, in file order.
+	 */
+	public static ArrayList<Card> loadText(String fileName) {
+		ArrayList<Card> loaded = new ArrayList<Card>();
+		try (BufferedReader read = new BufferedReader(new FileReader(fileName))) {
+			String line;
+			int lineNumber = 0;
+			while ((line = read.readLine()) != null) {
+				lineNumber ++;
+				if (line.trim().isEmpty())
+					continue;
+				try {
+					loaded.add(parse(line));
+				} catch (IllegalArgumentException e) {
+					System.err.println(fileName + ":" + lineNumber + ": " + e.getMessage());
 				}
 			}
-			read.close();
-			
-		} catch (Exception e) {
-			e.printStackTrace();
+		} catch (IOException e) {
+			System.err.println(fileName + ": " + e.getMessage());
+		}
+		return loaded;
+	}
+	
+	/**
+	 * Creates a single card from one line of a card file. Any card may be followed by more attribute effects, five fields each: the attribute
+	 * (optionally prefixed with user: or target:), then the current, start and end amounts and the duration(see Effect.parse).
+	 * @param line comma separated card type, name and values.
+	 * @return the Card described by the line.
+	 * @throws IllegalArgumentException if the card type or an attribute is unknown, the wrong number of fields is given, or a number cannot be read.
+	 */
+	public static Card parse(String line) {
+		String[] traits = line.split(",");
+		
+		if (traits[0].equals("basic")) {
+			checkLength(traits, 6);
+			return new Card(number(traits, 2), number(traits, 3), number(traits, 4), effects(traits, 6, null), number(traits, 5), traits[1], null);
+		}
+		else if (traits[0].equals("area")) {
+			checkLength(traits, 6);
+			return new Card(number(traits, 2), number(traits, 3), number(traits, 4), effects(traits, 6, null), true, number(traits, 5), traits[1], null);
+		}
+		else if (traits[0].equals("skill")){
+			checkLength(traits, 8);
+			Effect first = new Effect(traits[2], number(traits, 3), number(traits, 4), number(traits, 5), number(traits, 6));
+			return new Skill(0, 0, 0, effects(traits, 8, first), number(traits, 7), traits[1], null);
+		}
+		else if (traits[0].equals("skillAction")){
+			checkLength(traits, 11);
+			Effect first = new Effect(traits[5], number(traits, 6), number(traits, 7), number(traits, 8), number(traits, 9));
+			return new Skill(number(traits, 2), number(traits, 3), number(traits, 4), effects(traits, 11, first), number(traits, 10), traits[1], null);
+		}
+		throw new IllegalArgumentException("unknown card type '" + traits[0] + "'");
+	}
+	
+	/**
+	 * Private utility method, makes sure a line has the expected number of fields for its card type, plus five for each extra effect.
+	 */
+	private static void checkLength(String[] traits, int expected) {
+		if (traits.length < expected || (traits.length - expected) % 5 != 0)
+			throw new IllegalArgumentException("expected " + expected + " fields for a " + traits[0] + " card, plus 5 per extra effect, found " + traits.length);
+	}
+
+	/**
+	 * Private utility method, reads the effects that follow a card's own fields.
+	 * @param first the effect described by the card's own fields, or null if it has none.
+	 */
+	private static Effect[] effects(String[] traits, int from, Effect first) {
+		int offset = first == null ? 0 : 1;
+		Effect[] effects = new Effect[offset + (traits.length - from) / 5];
+		if (first != null)
+			effects[0] = first;
+		for (int i = offset; i < effects.length; i ++)
+			effects[i] = Effect.parse(traits, from + (i - offset) * 5);
+		return effects;
+	}
+	
+	/**
+	 * Private utility method, reads the field at a given index as an int.
+	 */
+	private static int number(String[] traits, int index) {
+		try {
+			return Integer.parseInt(traits[index].trim());
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("field " + (index + 1) + " ('" + traits[index] + "') is not a number");
+		}
+	}
+	
+	/**
+	 * Private utility method, builds the name index and the player/monster pools from a freshly loaded list of cards. If two cards share a name,
+	 * the first one is kept in the index, matching the order cards.txt is read in.
+	 * @param loaded every card that was loaded, in file order.
+	 */
+	private static void index(ArrayList<Card> loaded) {
+		HashMap<String, Card> names = new HashMap<String, Card>(loaded.size() * 2);
+		ArrayList<Card> player = new ArrayList<Card>(), monster = new ArrayList<Card>();
+		for (Card c : loaded) {
+			names.putIfAbsent(c.getName(), c);
+			if (c.getName().contains("Monster"))
+				monster.add(c);
+			else
+				player.add(c);
 		}
+		registry = new Registry(Collections.unmodifiableList(loaded), names, player.toArray(new Card[player.size()]), monster.toArray(new Card[monster.size()]));
+	}
+	
+	/**
+	 * @return every loaded card, in the order they appear in cards.txt. The list cannot be modified.
+	 */
+	public static List<Card> getAll() {
+		return registry.cards;
 	}
 	
 	/**
@@ -48,29 +171,55 @@ public class CardsUtil {
 	 * @return a Card object with the given name, or null if no such card exists.
 	 */
 	public static Card get(String name) {
-		for (Card c : cards) {
-			if (c.getName().equals(name))
-				return c;
-		}
-		return null;
+		return registry.byName.get(name);
 	}
 	
 	/**
-	 * @return a random Card object (for use by the player).
+	 * @return a random Card object (for use by the player), picked with the calling thread's GameRandom.
 	 */
 	public static Card randomP () {
-		Card c;
-		while ((c = cards.get((int) (Math.random() * cards.size()))).getName().contains("Monster"));
-		return c;
+		return randomP(GameRandom.current());
 	}
 	
 	/**
-	 * @return a random Card object (for use by the monsters).
+	 * @param random the generator to pick with.
+	 * @return a random Card object (for use by the player).
+	 */
+	public static Card randomP (GameRandom random) {
+		Card[] pool = registry.playerPool;
+		return pool[random.nextInt(pool.length)];
+	}
+	
+	/**
+	 * @return a random Card object (for use by the monsters), picked with the calling thread's GameRandom.
 	 */
 	public static Card randomM () {
-		Card c;
-		while (!(c = cards.get((int) (Math.random() * cards.size()))).getName().contains("Monster"));
-		return c;
+		return randomM(GameRandom.current());
+	}
+	
+	/**
+	 * @param random the generator to pick with.
+	 * @return a random Card object (for use by the monsters).
+	 */
+	public static Card randomM (GameRandom random) {
+		Card[] pool = registry.monsterPool;
+		return pool[random.nextInt(pool.length)];
+	}
+
+	/**
+	 * Everything load produces, held together so that it is replaced in one step and never seen half-built. Nothing in it is changed after it is built.
+	 */
+	private static final class Registry {
+		final List<Card> cards;
+		final HashMap<String, Card> byName;
+		final Card[] playerPool, monsterPool;
+
+		Registry(List<Card> cards, HashMap<String, Card> byName, Card[] playerPool, Card[] monsterPool) {
+			this.cards = cards;
+			this.byName = byName;
+			this.playerPool = playerPool;
+			this.monsterPool = monsterPool;
+		}
 	}
 
 }
@@ -0,0 +1,380 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Records every combat a GameEngine runs to a compact binary file(see GameEngine.setLog), which CombatReplayer can read back. The file is only ever
+ * appended to, through a large buffer, so recording costs little more than filling in a few bytes per event.
+ *
+ * The file starts with MAGIC and VERSION, followed by records, each an opcode byte and its fields:
+ * - NAME id(short) name(UTF): gives a card or monster name an id, the first time the name is needed. Later records refer to the name by id.
+ * - COMBAT_START combat(int) count(byte) monster(short)...: a new combat has begun against the given monsters, in encounter order.
+ * - CHECKPOINT length(int) player(UTF) count(byte) monster(UTF)... state: the whole combat, written by CombatState.write, before the next turn starts.
+ * - TURN_START turn(int) random(long): a turn is starting, and the state of the random number generator before any of its draws.
+ * - MOVE monster(byte) card(short): a living monster's chosen move, one record per monster.
+ * - DRAW count(byte) card(short)...: the player's hand once it has been drawn.
+ * - CARD index(byte) target(byte) card(short) used(boolean): the player played the card at the given index in their hand on the given monster.
+ * - DAMAGE or HEAL side(byte) amount(int): an entity's health went down or up.
+ * - ATTRIBUTE side(byte) kind(byte) value(int): an attribute(an EntityStore kind; armour is block) changed to the given value.
+ * - ENERGY side(byte) value(int): an entity's energy changed to the given value.
+ * - TURN_END: the player ended their turn.
+ * - MONSTER_MOVE monster(byte) card(short): a living monster used its move. The monsters move together(see Encounter.act), so the changes their
+ *   moves made follow the last of these records.
+ * - COMBAT_END outcome(byte) turn(int): the combat is over; outcome is WON, LOST or UNFINISHED.
+ * - REWARD card(short): the card the player was given.
+ *
+ * Changes in health, energy and attributes are found by comparing each entity with how it was after the previous event, so they are recorded
+ * whatever caused them. A side is PLAYER, or MONSTER plus the monster's index in the encounter. Closing the log appends an index of every checkpoint(its combat, turn and position), followed by the position of the
+ * index and MAGIC, so a replayer can find the nearest checkpoint to any turn without reading the records before it. Positions are longs, so a log may
+ * grow past 2 GiB; no record is longer than MAX_RECORD bytes, so a replayer can map a large log in overlapping windows(see CombatReplayer).
+ */
+public class CombatLog implements Closeable {
+
+	public static final int MAGIC = 0x434C4F47;
+	public static final short VERSION = 2;
+	/** The most bytes any record takes, opcode included. */
+	public static final int MAX_RECORD = 1 << 24;
+
+	static final byte NAME = 0, COMBAT_START = 1, CHECKPOINT = 2, TURN_START = 3, MOVE = 4, DRAW = 5, CARD = 6, DAMAGE = 7, HEAL = 8, ATTRIBUTE = 9,
+			ENERGY = 10, TURN_END = 11, MONSTER_MOVE = 12, COMBAT_END = 13, REWARD = 14;
+	static final byte PLAYER = 0, MONSTER = 1;
+	static final byte WON = 0, LOST = 1, UNFINISHED = 2;
+
+	//Compared numbers of each entity: health, energy, then each attribute kind.
+	private static final int FIELDS = 2 + EntityStore.ATTRIBUTES;
+
+	private final LogOutput out;
+	private final int checkpointInterval;
+	private final HashMap<String, Integer> names = new HashMap<String, Integer>();
+	private final ByteArrayOutputStream checkpoint = new ByteArrayOutputStream(1024);
+	//The numbers of each side after the previous event: the player, then each monster of the encounter.
+	private int[][] last = new int[2][FIELDS];
+	private int combat = -1;
+
+	//The index: one combat, turn and position per checkpoint.
+	private int[] indexCombats = new int[16], indexTurns = new int[16];
+	private long[] indexOffsets = new long[16];
+	private int indexSize;
+
+	/**
+	 * Creates a new log file, replacing any file with the same name.
+	 * @param file the name of the file.
+	 * @param checkpointInterval a checkpoint is written at the start of every combat and before every turn that is a multiple of this.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public CombatLog(String file, int checkpointInterval) throws IOException {
+		FileOutputStream stream = new FileOutputStream(file);
+		out = new LogOutput(new BufferedOutputStream(stream, 1 << 16));
+		this.checkpointInterval = Math.max(1, checkpointInterval);
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+		} catch (IOException e) {
+			stream.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Records the start of a combat, and checkpoints it.
+	 * @param engine the engine running the combat, once the player is ready for it.
+	 */
+	public void combatStarted(GameEngine engine) {
+		try {
+			combat ++;
+			Encounter encounter = engine.getEncounter();
+			int[] monsters = new int[encounter.size()];
+			for (int i = 0; i < monsters.length; i ++)
+				monsters[i] = nameId(encounter.get(i).getName());
+			out.writeByte(COMBAT_START);
+			out.writeInt(combat);
+			out.writeByte(monsters.length);
+			for (int id : monsters)
+				out.writeShort(id);
+			writeCheckpoint(engine);
+			if (last.length < 1 + monsters.length) {
+				last = Arrays.copyOf(last, 1 + monsters.length);
+				for (int side = 0; side < last.length; side ++)
+					if (last[side] == null)
+						last[side] = new int[FIELDS];
+			}
+			remember(PLAYER, engine.getPlayer());
+			for (int i = 0; i < monsters.length; i ++)
+				remember(MONSTER + i, encounter.get(i));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records that a turn is about to start, checkpointing the combat first if the turn is due one.
+	 * @param engine the engine running the combat, before the turn number is increased or anything is drawn.
+	 */
+	public void turnStarting(GameEngine engine) {
+		try {
+			if (engine.getTurn() > 0 && engine.getTurn() % checkpointInterval == 0)
+				writeCheckpoint(engine);
+			out.writeByte(TURN_START);
+			out.writeInt(engine.getTurn() + 1);
+			out.writeLong(engine.getRandom().getState());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records the living monsters' chosen moves, the player's hand and what changed as the turn started.
+	 * @param engine the engine running the combat.
+	 */
+	public void turnStarted(GameEngine engine) {
+		try {
+			moves(engine, MOVE);
+			Deck deck = engine.getPlayer().getDeck();
+			int n = Math.min(deck.getHandSize(), Byte.MAX_VALUE);
+			for (int i = 0; i < n; i ++)
+				nameId(deck.getCardInHand(i).getName());
+			out.writeByte(DRAW);
+			out.writeByte(n);
+			for (int i = 0; i < n; i ++)
+				out.writeShort(names.get(deck.getCardInHand(i).getName()));
+			changes(engine);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records a card the player played and what it changed.
+	 * @param engine the engine running the combat.
+	 * @param index the card's index in the hand.
+	 * @param target the index in the encounter of the monster the card was played on.
+	 * @param card the card.
+	 * @param used whether the player could afford the card.
+	 */
+	public void cardPlayed(GameEngine engine, int index, int target, Card card, boolean used) {
+		try {
+			int id = nameId(card.getName());
+			out.writeByte(CARD);
+			out.writeByte(index);
+			out.writeByte(target);
+			out.writeShort(id);
+			out.writeBoolean(used);
+			changes(engine);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records the end of the player's turn and what changed as it ended.
+	 * @param engine the engine running the combat.
+	 */
+	public void turnEnded(GameEngine engine) {
+		try {
+			out.writeByte(TURN_END);
+			changes(engine);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records the move each living monster is about to use.
+	 * @param engine the engine running the combat, before the monsters move.
+	 */
+	public void monstersMoving(GameEngine engine) {
+		try {
+			moves(engine, MONSTER_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records what the monsters' moves changed.
+	 * @param engine the engine running the combat, once the monsters have moved.
+	 */
+	public void monstersMoved(GameEngine engine) {
+		try {
+			changes(engine);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Records the outcome of a combat.
+	 * @param engine the engine running the combat.
+	 * @param reward the card the player was given, or null if they did not win.
+	 */
+	public void combatEnded(GameEngine engine, Card reward) {
+		try {
+			int id = reward == null ? -1 : nameId(reward.getName());
+			out.writeByte(COMBAT_END);
+			out.writeByte(engine.playerWon() ? WON : engine.getPlayer().alive() ? UNFINISHED : LOST);
+			out.writeInt(engine.getTurn());
+			if (reward != null) {
+				out.writeByte(REWARD);
+				out.writeShort(id);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the checkpoint index and closes the file. The log must not be used afterwards.
+	 */
+	@Override
+	public void close() throws IOException {
+		long start = out.position();
+		out.writeInt(indexSize);
+		for (int i = 0; i < indexSize; i ++) {
+			out.writeInt(indexCombats[i]);
+			out.writeInt(indexTurns[i]);
+			out.writeLong(indexOffsets[i]);
+		}
+		out.writeLong(start);
+		out.writeInt(MAGIC);
+		out.close();
+	}
+
+	/**
+	 * Private utility method, writes a checkpoint of the combat and adds it to the index.
+	 */
+	private void writeCheckpoint(GameEngine engine) throws IOException {
+		if (indexSize == indexTurns.length) {
+			indexCombats = Arrays.copyOf(indexCombats, indexSize * 2);
+			indexTurns = Arrays.copyOf(indexTurns, indexSize * 2);
+			indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+		}
+		indexCombats[indexSize] = combat;
+		indexTurns[indexSize] = engine.getTurn();
+		indexOffsets[indexSize ++] = out.position();
+
+		checkpoint.reset();
+		DataOutputStream state = new DataOutputStream(checkpoint);
+		Encounter encounter = engine.getEncounter();
+		state.writeUTF(engine.getPlayer().getName());
+		state.writeByte(encounter.size());
+		for (int i = 0; i < encounter.size(); i ++)
+			state.writeUTF(encounter.get(i).getName());
+		engine.saveState().write(state);
+		if (1 + 4 + checkpoint.size() > MAX_RECORD)
+			throw new IOException("the checkpoint of combat " + combat + " takes " + checkpoint.size() + " bytes, more than a record may");
+		out.writeByte(CHECKPOINT);
+		out.writeInt(checkpoint.size());
+		checkpoint.writeTo(out);
+	}
+
+	/**
+	 * Private utility method, records the move of each living monster with the given opcode.
+	 */
+	private void moves(GameEngine engine, byte op) throws IOException {
+		Encounter encounter = engine.getEncounter();
+		for (int i = 0; i < encounter.size(); i ++) {
+			Monster m = encounter.get(i);
+			if (m.alive() && m.getMove() != null) {
+				int move = nameId(m.getMove().getName());
+				out.writeByte(op);
+				out.writeByte(i);
+				out.writeShort(move);
+			}
+		}
+	}
+
+	/**
+	 * Private utility method, records every number of any entity that changed since the previous event.
+	 */
+	private void changes(GameEngine engine) throws IOException {
+		changes(PLAYER, engine.getPlayer());
+		Encounter encounter = engine.getEncounter();
+		for (int i = 0; i < encounter.size(); i ++)
+			changes(MONSTER + i, encounter.get(i));
+	}
+
+	/**
+	 * Private utility method, records every number of an entity that changed since the previous event.
+	 */
+	private void changes(int side, Entity e) throws IOException {
+		int[] before = last[side];
+		int health = e.getHealth();
+		if (health != before[0]) {
+			out.writeByte(health < before[0] ? DAMAGE : HEAL);
+			out.writeByte(side);
+			out.writeInt(Math.abs(health - before[0]));
+		}
+		if (e.getEnergy() != before[1]) {
+			out.writeByte(ENERGY);
+			out.writeByte(side);
+			out.writeInt(e.getEnergy());
+		}
+		int row = e.getSlot() * EntityStore.ATTRIBUTES;
+		for (int k = 0; k < EntityStore.ATTRIBUTES; k ++) {
+			int value = e.getStore().currentVal[row + k];
+			if (value != before[2 + k]) {
+				out.writeByte(ATTRIBUTE);
+				out.writeByte(side);
+				out.writeByte(k);
+				out.writeInt(value);
+			}
+		}
+		remember(side, e);
+	}
+
+	/**
+	 * Private utility method, keeps the numbers of an entity to compare with after the next event.
+	 */
+	private void remember(int side, Entity e) {
+		int[] now = last[side];
+		now[0] = e.getHealth();
+		now[1] = e.getEnergy();
+		int row = e.getSlot() * EntityStore.ATTRIBUTES;
+		for (int k = 0; k < EntityStore.ATTRIBUTES; k ++)
+			now[2 + k] = e.getStore().currentVal[row + k];
+	}
+
+	/**
+	 * Private utility method, gets the id of a name, writing a NAME record the first time the name is seen.
+	 */
+	private int nameId(String name) throws IOException {
+		Integer id = names.get(name);
+		if (id == null) {
+			id = names.size();
+			names.put(name, id);
+			out.writeByte(NAME);
+			out.writeShort(id);
+			out.writeUTF(name);
+		}
+		return id;
+	}
+
+	/**
+	 * A DataOutputStream whose position keeps counting past Integer.MAX_VALUE, where size() stops. The count is moved out of size() every time
+	 * position is called, which every checkpoint does, and far less than 2 GiB is written between checkpoints.
+	 */
+	private static final class LogOutput extends DataOutputStream {
+		private long counted;
+
+		private LogOutput(OutputStream out) {
+			super(out);
+		}
+
+		/**
+		 * @return the number of bytes written so far.
+		 */
+		long position() {
+			counted += written;
+			written = 0;
+			return counted;
+		}
+	}
+
+}
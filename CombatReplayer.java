@@ -0,0 +1,305 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Reads a file written by CombatLog. Any turn of any recorded combat can be reconstructed: the replayer restores the nearest checkpoint before the
+ * turn, then plays the player's recorded decisions forward through a GameEngine from there. The checkpoint includes the state of the random number
+ * generator, so the draws and monster moves come out exactly as they did when the combat was recorded(see GameRandom).
+ *
+ * The file is memory-mapped, and the index at its end is read once, so finding a checkpoint never reads the records before it. A log larger than one
+ * mapping can hold is mapped as windows of WINDOW bytes, each overlapping the next by CombatLog.MAX_RECORD, so every record lies whole within the
+ * window it starts in, and reading moves on to the next window once it passes the end of the current one.
+ */
+public class CombatReplayer {
+
+	//The distance between the starts of consecutive windows.
+	private static final int WINDOW = 1 << 30;
+
+	private final ByteBuffer[] windows;
+	private final HashMap<String, Monster> roster = new HashMap<String, Monster>();
+	private final int[] indexCombats, indexTurns;
+	private final long[] indexOffsets;
+	private final long end;
+
+	/**
+	 * Opens a log file. CardsUtil must already be loaded.
+	 * @param file the name of the file.
+	 * @param roster the monsters the recorded player could have fought; each combat's monsters are copied from the ones with their names.
+	 * @throws IOException if the file cannot be read, is not a complete combat log, or was written by a different version.
+	 */
+	public CombatReplayer(String file, Monster[] roster) throws IOException {
+		for (Monster m : roster)
+			this.roster.put(m.getName(), m);
+		long size;
+		try (RandomAccessFile f = new RandomAccessFile(file, "r"); FileChannel channel = f.getChannel()) {
+			size = channel.size();
+			windows = new ByteBuffer[(int) Math.max(1, (size - 1) / WINDOW + 1)];
+			for (int i = 0; i < windows.length; i ++) {
+				long start = (long) i * WINDOW;
+				windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, (long) WINDOW + CombatLog.MAX_RECORD));
+			}
+		}
+		if (size < 18 || windows[0].getInt(0) != CombatLog.MAGIC || window(size - 4).getInt() != CombatLog.MAGIC)
+			throw new IOException(file + " is not a complete combat log");
+		if (windows[0].getShort(4) != CombatLog.VERSION)
+			throw new IOException(file + " was written by combat log version " + windows[0].getShort(4) + ", expected " + CombatLog.VERSION);
+
+		end = window(size - 12).getLong();
+		if (end < 6 || end > size - 16)
+			throw new IOException(file + " is not a complete combat log");
+		ByteBuffer in = window(end);
+		long base = end - end % WINDOW;
+		int n = in.getInt();
+		if (n < 0 || n > (size - 16 - end) / 16)
+			throw new IOException(file + " is not a complete combat log");
+		indexCombats = new int[n];
+		indexTurns = new int[n];
+		indexOffsets = new long[n];
+		for (int i = 0; i < n; i ++) {
+			if (in.position() >= WINDOW) {
+				base += WINDOW;
+				in = window(base + in.position() - WINDOW);
+			}
+			indexCombats[i] = in.getInt();
+			indexTurns[i] = in.getInt();
+			indexOffsets[i] = in.getLong();
+		}
+	}
+
+	/**
+	 * Private utility method, gets a new view of the window a position of the file starts in, positioned at it. The window's own positions count
+	 * from the start of the window, a multiple of WINDOW.
+	 */
+	private ByteBuffer window(long position) {
+		ByteBuffer in = windows[(int) (position / WINDOW)].duplicate();
+		in.position((int) (position % WINDOW));
+		return in;
+	}
+
+	/**
+	 * @return the number of combats recorded.
+	 */
+	public int getCombats() {
+		return indexCombats.length == 0 ? 0 : indexCombats[indexCombats.length - 1] + 1;
+	}
+
+	/**
+	 * Reconstructs a recorded combat as it was once a given turn had started: the monsters' moves chosen and the player's hand drawn.
+	 * @param combat the combat, counting from 0.
+	 * @param turn the turn, counting from 1; 0 gives the combat as it was before its first turn.
+	 * @param controller makes the player's decisions if the returned engine is used to continue the combat.
+	 * @return an engine holding a new Player and Encounter in the reconstructed state.
+	 * @throws IOException if the log cannot be read.
+	 * @throws IllegalArgumentException if the log holds no such combat or turn.
+	 */
+	public GameEngine seek(int combat, int turn, Controller controller) throws IOException {
+		int checkpoint = -1;
+		for (int i = 0; i < indexCombats.length; i ++)
+			if (indexCombats[i] == combat && indexTurns[i] <= Math.max(0, turn - 1))
+				checkpoint = i;
+		if (checkpoint < 0)
+			throw new IllegalArgumentException("the log holds no combat " + combat);
+
+		ByteBuffer in = window(indexOffsets[checkpoint]);
+		long base = indexOffsets[checkpoint] - indexOffsets[checkpoint] % WINDOW;
+		if (in.get() != CombatLog.CHECKPOINT)
+			throw new IOException("the index does not point at a checkpoint");
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		DataInputStream state = new DataInputStream(new ByteArrayInputStream(bytes));
+		String playerName = state.readUTF();
+		Monster[] monsters = new Monster[state.readByte()];
+		for (int i = 0; i < monsters.length; i ++) {
+			String monsterName = state.readUTF();
+			Monster template = roster.get(monsterName);
+			if (template == null)
+				throw new IOException("the roster has no monster named " + monsterName);
+			monsters[i] = new Monster(template);
+		}
+
+		Player player = new Player(playerName, 1);
+		Encounter encounter = new Encounter(monsters);
+		GameEngine engine = new GameEngine(player, null, controller, null, new GameRandom(0));
+		engine.resumeCombat(encounter, new CombatState(state, encounter));
+
+		while (engine.getTurn() < turn && base + in.position() < end) {
+			if (in.position() >= WINDOW) {
+				base += WINDOW;
+				in = window(base + in.position() - WINDOW);
+			}
+			byte op = in.get();
+			switch (op) {
+				case CombatLog.TURN_START:
+					in.getInt();
+					in.getLong();
+					engine.startPlayerTurn();
+					break;
+				case CombatLog.CARD:
+					int index = in.get(), target = in.get();
+					in.getShort();
+					in.get();
+					engine.playCard(index, target);
+					break;
+				case CombatLog.TURN_END:
+					engine.endTurn();
+					break;
+				case CombatLog.COMBAT_START:
+				case CombatLog.COMBAT_END:
+					throw new IllegalArgumentException("combat " + combat + " has no turn " + turn);
+				default:
+					skip(in, op);
+			}
+		}
+		return engine;
+	}
+
+	/**
+	 * Describes every record of a combat, one line per record.
+	 * @param combat the combat, counting from 0.
+	 * @return the description of each record.
+	 */
+	public List<String> describe(int combat) {
+		List<String> lines = new ArrayList<String>();
+		List<String> names = new ArrayList<String>();
+		ByteBuffer in = window(6);
+		long base = 0;
+		int current = -1, monsters = 1;
+		while (base + in.position() < end) {
+			if (in.position() >= WINDOW) {
+				base += WINDOW;
+				in = window(base + in.position() - WINDOW);
+			}
+			byte op = in.get();
+			String line = null;
+			switch (op) {
+				case CombatLog.NAME:
+					in.getShort();
+					names.add(readString(in));
+					break;
+				case CombatLog.COMBAT_START:
+					current = in.getInt();
+					monsters = in.get();
+					StringBuilder against = new StringBuilder("Combat " + current + " against ");
+					for (int i = 0; i < monsters; i ++)
+						against.append(i == 0 ? "" : i == monsters - 1 ? " and " : ", ").append(names.get(in.getShort()));
+					line = against.toString();
+					break;
+				case CombatLog.TURN_START:
+					line = "Turn " + in.getInt() + " (random state " + in.getLong() + ")";
+					break;
+				case CombatLog.MOVE:
+					line = "  " + side(1 + in.get(), monsters) + " intends " + names.get(in.getShort());
+					break;
+				case CombatLog.DRAW:
+					StringBuilder hand = new StringBuilder("  Hand:");
+					for (int n = in.get(); n > 0; n --)
+						hand.append(' ').append(names.get(in.getShort())).append(n > 1 ? "," : "");
+					line = hand.toString();
+					break;
+				case CombatLog.CARD:
+					int index = in.get(), target = in.get();
+					String card = names.get(in.getShort());
+					line = "  Played " + index + ": " + card + (monsters > 1 ? " on " + side(1 + target, monsters) : "")
+							+ (in.get() != 0 ? "" : " (not enough energy)");
+					break;
+				case CombatLog.DAMAGE:
+				case CombatLog.HEAL:
+					line = "    " + side(in.get(), monsters) + (op == CombatLog.DAMAGE ? " lost " : " gained ") + in.getInt() + " health";
+					break;
+				case CombatLog.ATTRIBUTE:
+					String who = side(in.get(), monsters);
+					line = "    " + who + " " + Effect.NAMES[in.get()] + " is now " + in.getInt();
+					break;
+				case CombatLog.ENERGY:
+					line = "    " + side(in.get(), monsters) + " energy is now " + in.getInt();
+					break;
+				case CombatLog.TURN_END:
+					line = "  Turn ended";
+					break;
+				case CombatLog.MONSTER_MOVE:
+					line = "  " + side(1 + in.get(), monsters) + " used " + names.get(in.getShort());
+					break;
+				case CombatLog.COMBAT_END:
+					byte outcome = in.get();
+					line = (outcome == CombatLog.WON ? "Won" : outcome == CombatLog.LOST ? "Lost" : "Unfinished") + " after " + in.getInt() + " turns";
+					break;
+				case CombatLog.REWARD:
+					line = "Reward: " + names.get(in.getShort());
+					break;
+				default:
+					skip(in, op);
+			}
+			if (line != null && current == combat)
+				lines.add(line);
+		}
+		return lines;
+	}
+
+	/**
+	 * Private utility method, names a side of a combat against a given number of monsters: the monsters are numbered from 0 when there is more than one.
+	 */
+	private static String side(int side, int monsters) {
+		return side == CombatLog.PLAYER ? "Player" : monsters == 1 ? "Monster" : "Monster " + (side - CombatLog.MONSTER);
+	}
+
+	/**
+	 * Private utility method, moves past the fields of a record whose opcode has been read.
+	 */
+	private static void skip(ByteBuffer in, byte op) {
+		switch (op) {
+			case CombatLog.NAME:
+				in.getShort();
+				in.position(in.position() + 2 + (in.getShort(in.position()) & 0xFFFF));
+				break;
+			case CombatLog.COMBAT_START: in.position(in.position() + 5 + 2 * in.get(in.position() + 4)); break;
+			case CombatLog.CHECKPOINT: in.position(in.position() + 4 + in.getInt(in.position())); break;
+			case CombatLog.TURN_START: in.position(in.position() + 12); break;
+			case CombatLog.MOVE: case CombatLog.MONSTER_MOVE: in.position(in.position() + 3); break;
+			case CombatLog.REWARD: in.position(in.position() + 2); break;
+			case CombatLog.DRAW: in.position(in.position() + 1 + 2 * in.get(in.position())); break;
+			case CombatLog.CARD: in.position(in.position() + 5); break;
+			case CombatLog.DAMAGE: case CombatLog.HEAL: case CombatLog.ENERGY: in.position(in.position() + 5); break;
+			case CombatLog.ATTRIBUTE: in.position(in.position() + 6); break;
+			case CombatLog.TURN_END: break;
+			case CombatLog.COMBAT_END: in.position(in.position() + 5); break;
+			default:
+				throw new IllegalStateException("unknown record " + op + " at " + (in.position() - 1));
+		}
+	}
+
+	/**
+	 * Private utility method, reads a string written by DataOutput.writeUTF. Card and monster names never hold the characters that writeUTF encodes
+	 * differently from UTF-8.
+	 */
+	private static String readString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getShort() & 0xFFFF];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Prints a recorded combat, or the state of a combat at a given turn.
+	 * @param args the log file, the combat(defaults to 0) and optionally the turn.
+	 */
+	public static void main(String[] args) throws IOException {
+		CardsUtil.load();
+		CombatReplayer replayer = new CombatReplayer(args[0], Game.createMonsters());
+		int combat = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+		if (args.length > 2) {
+			GameEngine engine = replayer.seek(combat, Integer.parseInt(args[2]), new GreedyController());
+			System.out.println(Game.statsToString(engine.getPlayer(), engine.getEncounter()) + engine.getPlayer().getDeck().handToString());
+		} else {
+			for (String line : replayer.describe(combat))
+				System.out.println(line);
+		}
+	}
+
+}
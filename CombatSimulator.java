@@ -0,0 +1,147 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs many independent combats between copies of a given Player and Monster across all cores, and reports how they went. The combats are split between
+ * fork-join tasks; every task that runs combats gives its own GameRandom to its GameEngines, split from the generator for the whole run, so workers never share random
+ * state and a run with a given seed always gives the same result however its tasks are scheduled.
+ *
+ * The Monster is held as a MonsterPrototype, and every task takes its monsters from its own MonsterFactory, so a task reuses one Monster, reset to
+ * the prototype's state, for all of its combats rather than copying one for each.
+ */
+public class CombatSimulator {
+
+	//Combats run by a single task without splitting it further.
+	private static final int BATCH_SIZE = 64;
+
+	private final Player player;
+	private final MonsterPrototype monster;
+	private Supplier<Controller> controllers = GreedyController::new;
+	private int turnLimit = 100;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * Creates a simulator for a given Player and Monster. Neither is changed by simulating; each combat is fought by a fresh copy of the Player,
+	 * which must not be changed while a simulation is running, and by a Monster in the state the given one is in now(see MonsterPrototype(Monster)).
+	 * @param player the Player, with the deck to simulate.
+	 * @param monster the Monster to fight.
+	 */
+	public CombatSimulator(Player player, Monster monster) {
+		this(player, new MonsterPrototype(monster));
+	}
+
+	/**
+	 * Creates a simulator for a given Player and monster prototype. The Player is not changed by simulating; each combat is fought by a fresh copy
+	 * of the Player, so they must not be changed while a simulation is running.
+	 * @param player the Player, with the deck to simulate.
+	 * @param monster the prototype of the Monster to fight.
+	 */
+	public CombatSimulator(Player player, MonsterPrototype monster) {
+		this.player = player;
+		this.monster = monster;
+	}
+
+	/**
+	 * @param controllers creates the Controller used to make the player's decisions in each task. Defaults to GreedyController.
+	 */
+	public void setControllers(Supplier<Controller> controllers) {
+		this.controllers = controllers;
+	}
+
+	/**
+	 * @param turnLimit the most turns a simulated combat may last before it counts as unfinished. Defaults to 100.
+	 */
+	public void setTurnLimit(int turnLimit) {
+		this.turnLimit = turnLimit;
+	}
+
+	/**
+	 * @param pool the fork-join pool to run simulations in. Defaults to the common pool.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Simulates a given number of combats.
+	 * @param combats how many combats to simulate.
+	 * @param seed the seed the run's random numbers are generated from.
+	 * @return the combined outcome of every combat.
+	 */
+	public SimulationResult run(int combats, long seed) {
+		return pool.invoke(new Batch(combats, new GameRandom(seed)));
+	}
+
+	/**
+	 * Starts simulating a given number of combats in the pool without waiting for them, so that several simulations can run at once.
+	 * @param combats how many combats to simulate.
+	 * @param seed the seed the run's random numbers are generated from.
+	 * @return the running simulation; join it to get the combined outcome of every combat.
+	 */
+	public ForkJoinTask<SimulationResult> fork(int combats, long seed) {
+		return pool.submit(new Batch(combats, new GameRandom(seed)));
+	}
+
+	/**
+	 * Simulates a single combat, adding its outcome to a given result.
+	 * @param controller makes the player's decisions.
+	 * @param random makes every random choice in the combat.
+	 * @param result the result to add the combat's outcome to.
+	 */
+	public void simulate(Controller controller, GameRandom random, SimulationResult result) {
+		simulate(controller, new MonsterFactory(monster), random, result);
+	}
+
+	/**
+	 * Private utility method, simulates a single combat against a Monster taken from a factory made from the simulator's prototype, giving it back
+	 * once the combat is over.
+	 */
+	private void simulate(Controller controller, MonsterFactory monsters, GameRandom random, SimulationResult result) {
+		Player p = new Player(player);
+		Monster m = monsters.acquire(0);
+		GameEngine engine = new GameEngine(p, null, controller, null, random);
+		engine.setTurnLimit(turnLimit);
+		engine.startCombat(m);
+		while (!engine.isCombatOver()) {
+			engine.playerTurn();
+			engine.endTurn();
+		}
+		result.add(engine.playerWon(), !p.alive(), engine.getTurn(), p.getHealth());
+		monsters.release(m);
+	}
+
+	/**
+	 * A fork-join task that simulates a number of combats, splitting itself in two while there are more than BATCH_SIZE.
+	 */
+	private class Batch extends RecursiveTask<SimulationResult> {
+		private static final long serialVersionUID = 1L;
+		private final int combats;
+		private final GameRandom random;
+
+		private Batch(int combats, GameRandom random) {
+			this.combats = combats;
+			this.random = random;
+		}
+
+		@Override
+		protected SimulationResult compute() {
+			if (combats > BATCH_SIZE) {
+				int half = combats / 2;
+				Batch left = new Batch(half, random.split());
+				left.fork();
+				SimulationResult right = new Batch(combats - half, random).compute();
+				return right.merge(left.join());
+			}
+			
+			SimulationResult result = new SimulationResult();
+			Controller controller = controllers.get();
+			MonsterFactory monsters = new MonsterFactory(monster);
+			for (int i = 0; i < combats; i ++)
+				simulate(controller, monsters, random, result);
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A snapshot of a combat: the player's and each monster's health, energy and attributes, the player's deck piles, each monster's chosen move and
+ * strategy progress, the state of the random number generator, and the turn number. A CombatState can be restored any number of times, into the
+ * Player and Encounter it was captured from or into copies of them, so that a search can try many different moves from the same position.
+ *
+ * Capturing copies the entities' slots into the snapshot's own small EntityStore, and shares the deck's piles with the Deck until either
+ * changes them, so capturing and restoring take a few microseconds.
+ */
+public class CombatState {
+
+	//The player is held in slot 0, and each monster in the slot after it.
+	private final EntityStore entities;
+	private final Deck.State deck;
+	private final Monster.State[] monsters;
+	private final long random;
+	private final int turn;
+
+	/**
+	 * Captures the state of a combat against a single monster.
+	 * @param player the Player in the combat.
+	 * @param monster the Monster in the combat.
+	 * @param random the generator making the combat's random choices.
+	 * @param turn the current turn number.
+	 */
+	public CombatState(Player player, Monster monster, GameRandom random, int turn) {
+		this(player, new Encounter(monster), random, turn);
+	}
+
+	/**
+	 * Captures the state of a combat.
+	 * @param player the Player in the combat.
+	 * @param encounter the monsters in the combat.
+	 * @param random the generator making the combat's random choices.
+	 * @param turn the current turn number.
+	 */
+	public CombatState(Player player, Encounter encounter, GameRandom random, int turn) {
+		entities = new EntityStore(1 + encounter.size());
+		entities.copySlot(player.getStore(), player.getSlot(), entities.allocate());
+		monsters = new Monster.State[encounter.size()];
+		for (int i = 0; i < monsters.length; i ++) {
+			Monster m = encounter.get(i);
+			entities.copySlot(m.getStore(), m.getSlot(), entities.allocate());
+			monsters[i] = m.saveState();
+		}
+		deck = player.getDeck().saveState();
+		this.random = random.getState();
+		this.turn = turn;
+	}
+
+	/**
+	 * Reads the state of a combat against a single monster written by write. Cards are looked up by name, so CardsUtil must already be loaded.
+	 * @param in where to read the state from.
+	 * @param monster the Monster the state was captured from, or a copy of it; its strategy is not written with the state.
+	 * @throws IOException if the state cannot be read, names a card CardsUtil does not have, or holds more than one monster.
+	 */
+	public CombatState(DataInput in, Monster monster) throws IOException {
+		this(in, new Encounter(monster));
+	}
+
+	/**
+	 * Reads a state written by write. Cards are looked up by name, so CardsUtil must already be loaded.
+	 * @param in where to read the state from.
+	 * @param encounter the Encounter the state was captured from, or a copy of it; the monsters' strategies are not written with the state.
+	 * @throws IOException if the state cannot be read, names a card CardsUtil does not have, or holds a different number of monsters.
+	 */
+	public CombatState(DataInput in, Encounter encounter) throws IOException {
+		int n = in.readInt();
+		if (n != encounter.size())
+			throw new IOException("the state holds " + n + " monsters, expected " + encounter.size());
+		entities = new EntityStore(1 + n);
+		for (int slot = 0; slot <= n; slot ++)
+			entities.readSlot(entities.allocate(), in);
+		deck = new Deck.State(in);
+		monsters = new Monster.State[n];
+		for (int i = 0; i < n; i ++)
+			monsters[i] = new Monster.State(in, encounter.get(i).getStrategy());
+		random = in.readLong();
+		turn = in.readInt();
+	}
+
+	/**
+	 * Writes the state, with cards written by name, so that it can be read back by a later run of the game.
+	 * @param out where to write it.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(monsters.length);
+		for (int slot = 0; slot <= monsters.length; slot ++)
+			entities.writeSlot(slot, out);
+		deck.write(out);
+		for (Monster.State m : monsters)
+			m.write(out);
+		out.writeLong(random);
+		out.writeInt(turn);
+	}
+
+	/**
+	 * Puts a combat against a single monster back into the captured state.
+	 * @param player the Player the state was captured from, or a copy of them.
+	 * @param monster the Monster the state was captured from, or a copy of it.
+	 * @param random the generator to reset.
+	 */
+	public void restore(Player player, Monster monster, GameRandom random) {
+		restore(player, new Encounter(monster), random);
+	}
+
+	/**
+	 * Puts a combat back into the captured state.
+	 * @param player the Player the state was captured from, or a copy of them.
+	 * @param encounter the Encounter the state was captured from, or a copy of it.
+	 * @param random the generator to reset.
+	 */
+	public void restore(Player player, Encounter encounter, GameRandom random) {
+		if (encounter.size() != monsters.length)
+			throw new IllegalArgumentException("the state holds " + monsters.length + " monsters, not " + encounter.size());
+		player.getStore().copySlot(entities, 0, player.getSlot());
+		for (int i = 0; i < monsters.length; i ++) {
+			Monster m = encounter.get(i);
+			m.getStore().copySlot(entities, 1 + i, m.getSlot());
+			m.restoreState(monsters[i]);
+		}
+		player.getDeck().restoreState(deck);
+		random.setState(this.random);
+	}
+
+	/**
+	 * @return the turn number when the state was captured.
+	 */
+	public int getTurn() {
+		return turn;
+	}
+
+}
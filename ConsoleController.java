@@ -0,0 +1,94 @@
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * Lets a person make the player's decisions by typing them into the console.
+ */
+public class ConsoleController implements Controller {
+
+	private final Scanner in;
+	private final PrintWriter out;
+
+	/**
+	 * @param in the Scanner to read the user's input from, shared with the rest of the game.
+	 */
+	public ConsoleController(Scanner in) {
+		this(in, new PrintWriter(System.out, true));
+	}
+
+	/**
+	 * @param in the Scanner to read the user's input from, shared with the rest of the game.
+	 * @param out the writer to prompt the user through, shared with the game's ConsoleRenderer so that both are written in order. It is flushed
+	 * whenever the user is asked for input.
+	 */
+	public ConsoleController(Scanner in, PrintWriter out) {
+		this.in = in;
+		this.out = out;
+	}
+
+	/**
+	 * Prompts the player to select a Card from their hand. If the user enters anything other than a number, the turn is ended.
+	 */
+	@Override
+	public int chooseCard(GameEngine engine) {
+		out.println("Enter the number of the card you wish to use, or anything else to end your turn." + "\n" + engine.getPlayer().getDeck().handToString());
+		int choice = Controller.parseIndex(readLine());
+		return choice < 0 ? END_TURN : choice;
+	}
+
+	/**
+	 * Shows the card's description and asks the user to press enter to use it.
+	 */
+	@Override
+	public boolean confirmCard(GameEngine engine, Card card) {
+		out.println(card.getDescription() + "\nPress enter to use, type anything else to go back.");
+		return readLine().equals("");
+	}
+
+	/**
+	 * Lists the living monsters and lets the user pick one. If the user enters anything other than the number of a living monster, the first is taken.
+	 */
+	@Override
+	public int chooseTarget(GameEngine engine, Card card) {
+		Encounter encounter = engine.getEncounter();
+		String s = "Choose a target, or press enter to take the first:";
+		for (int i = 0; i < encounter.size(); i ++)
+			if (encounter.get(i).alive())
+				s += "\n" + i + ": " + encounter.get(i).getName() + " (" + encounter.get(i).getHealth() + "/" + encounter.get(i).getMaxHealth() + " health)";
+		out.println(s);
+		int choice = Controller.parseIndex(readLine());
+		return choice >= 0 && choice < encounter.size() && encounter.get(choice).alive() ? choice : encounter.firstAliveIndex();
+	}
+
+	/**
+	 * Lists the ranked rewards and lets the user pick one. If the user enters anything other than the number of a reward, the best ranked reward is taken.
+	 */
+	@Override
+	public int chooseReward(GameEngine engine, List<RewardEvaluator.Rating> ratings) {
+		String s = "Choose your reward, or press enter to take the first:";
+		for (int i = 0; i < ratings.size(); i ++)
+			s += "\n" + i + ": " + ratings.get(i);
+		out.println(s);
+		int choice = Controller.parseIndex(readLine());
+		return choice >= 0 && choice < ratings.size() ? choice : 0;
+	}
+
+	/**
+	 * Prompts the user to press enter.
+	 */
+	@Override
+	public void acknowledge(GameEngine engine) {
+		out.println("Press enter to continue.");
+		readLine();
+	}
+
+	/**
+	 * Private utility method, shows everything written so far, then reads a line from the user.
+	 */
+	private String readLine() {
+		out.flush();
+		return in.nextLine();
+	}
+
+}
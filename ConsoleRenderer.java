@@ -0,0 +1,153 @@
+import java.io.Flushable;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Shows a GameEngine's output on the console through one buffered writer, which is only flushed when the user is asked for input(see
+ * ConsoleController) or the game is over, rather than after every line.
+ *
+ * Stats are only shown when they have changed: the renderer remembers the numbers it last showed for the player and each monster, and a frame
+ * shows only the lines whose numbers differ, or nothing at all. Defeated monsters of a group are no longer shown. Every combat starts with a full frame.
+ *
+ * In quiet mode, messages and stats are not shown at all; each combat is summed up in one line as it ends, which suits long scripted or simulated runs.
+ */
+public class ConsoleRenderer implements EventSink, Flushable {
+
+	//Numbers compared per entity: health, max health, energy, max energy, then each attribute kind.
+	private static final int FIELDS = 4 + EntityStore.ATTRIBUTES;
+
+	private final PrintWriter out;
+	private final boolean quiet;
+	//The entities last shown and their numbers: the player first, then each monster of the encounter.
+	private Entity[] shown = new Entity[2];
+	private int[][] last = new int[2][FIELDS];
+	private final StringBuilder frame = new StringBuilder(256);
+	private int combats, won;
+
+	/**
+	 * @param out the writer to show output through, which should be buffered and not flush automatically.
+	 * @param quiet whether to show only a summary of each combat.
+	 */
+	public ConsoleRenderer(PrintWriter out, boolean quiet) {
+		this.out = out;
+		this.quiet = quiet;
+	}
+
+	@Override
+	public void message(String text) {
+		if (!quiet)
+			out.println(text);
+	}
+
+	/**
+	 * Shows the lines of the player and monster whose stats changed since they were last shown, if any did.
+	 */
+	@Override
+	public void stats(Entity player, Entity monster) {
+		if (quiet)
+			return;
+		frame.setLength(0);
+		frame.append('\n');
+		show(0, player, true);
+		show(1, monster, false);
+		if (frame.length() > 1)
+			out.write(frame.toString());
+	}
+
+	/**
+	 * Shows the lines of the player and each living monster whose stats changed since they were last shown, if any did.
+	 */
+	@Override
+	public void stats(Entity player, Encounter encounter) {
+		if (quiet)
+			return;
+		if (shown.length < 1 + encounter.size()) {
+			shown = Arrays.copyOf(shown, 1 + encounter.size());
+			last = Arrays.copyOf(last, shown.length);
+			for (int side = 0; side < last.length; side ++)
+				if (last[side] == null)
+					last[side] = new int[FIELDS];
+		}
+		frame.setLength(0);
+		frame.append('\n');
+		show(0, player, true);
+		for (int i = 0; i < encounter.size(); i ++)
+			if (encounter.get(i).alive() || encounter.size() == 1)
+				show(1 + i, encounter.get(i), false);
+		if (frame.length() > 1)
+			out.write(frame.toString());
+	}
+
+	/**
+	 * Counts the combat, and sums it up in quiet mode.
+	 */
+	@Override
+	public void combatEnded(GameEngine engine) {
+		combats ++;
+		boolean victory = engine.playerWon();
+		if (victory)
+			won ++;
+		if (quiet) {
+			Player p = engine.getPlayer();
+			out.println("Combat " + combats + " against " + engine.getEncounter().getName() + ": " + (victory ? "won" : p.alive() ? "unfinished" : "lost")
+					+ " after " + engine.getTurn() + " turns, " + p.getHealth() + "/" + p.getMaxHealth() + " health left.");
+		}
+		invalidate();
+	}
+
+	/**
+	 * Makes the next frame show every line, whether or not its stats changed.
+	 */
+	public void invalidate() {
+		Arrays.fill(shown, null);
+	}
+
+	/**
+	 * Shows how many combats were won, and flushes the writer.
+	 */
+	public void finish() {
+		out.println("Won " + won + " of " + combats + (combats == 1 ? " combat." : " combats."));
+		out.flush();
+	}
+
+	@Override
+	public void flush() {
+		out.flush();
+	}
+
+	/**
+	 * Private utility method, adds an entity's line to the frame if its numbers changed since they were last shown.
+	 */
+	private void show(int side, Entity e, boolean player) {
+		if (update(side, e))
+			Game.appendStats(frame, e, player).append('\n');
+	}
+
+	/**
+	 * Private utility method, remembers the numbers of an entity.
+	 * @return whether any of them, or the entity itself, changed since they were last remembered.
+	 */
+	private boolean update(int side, Entity e) {
+		int[] before = last[side];
+		boolean changed = shown[side] != e;
+		shown[side] = e;
+		changed |= set(before, 0, e.getHealth()) | set(before, 1, e.getMaxHealth()) | set(before, 2, e.getEnergy()) | set(before, 3, e.getMaxEnergy());
+		int[] values = e.getStore().currentVal;
+		int row = e.getSlot() * EntityStore.ATTRIBUTES;
+		for (int k = 0; k < EntityStore.ATTRIBUTES; k ++)
+			changed |= set(before, 4 + k, values[row + k]);
+		return changed;
+	}
+
+	/**
+	 * Private utility method, stores a number.
+	 * @return whether it differed from the number stored before.
+	 */
+	private static boolean set(int[] numbers, int index, int value) {
+		if (numbers[index] == value)
+			return false;
+		numbers[index] = value;
+		return true;
+	}
+
+}
@@ -0,0 +1,73 @@
+import java.util.List;
+
+/**
+ * Makes the player's decisions for a GameEngine. A Controller may ask a person(see ConsoleController) or decide on its own(see GreedyController),
+ * and is given the engine so that it can look at the Player, their Deck and the current Encounter.
+ */
+public interface Controller {
+
+	/** Returned by chooseCard to end the player's turn. */
+	int END_TURN = -1;
+
+	/**
+	 * Chooses the next card to play this turn.
+	 * @param engine the engine running the combat.
+	 * @return the index in the player's hand of the card to play, or END_TURN to end the turn.
+	 */
+	int chooseCard(GameEngine engine);
+
+	/**
+	 * Confirms a chosen card before it is played.
+	 * @param engine the engine running the combat.
+	 * @param card the card that was chosen.
+	 * @return true to play the card, false to cancel it and choose again.
+	 */
+	boolean confirmCard(GameEngine engine, Card card);
+
+	/**
+	 * Chooses which monster a card is used on, when it hits a single monster and more than one is alive. Takes the first living monster unless overridden.
+	 * @param engine the engine running the combat.
+	 * @param card the card that was chosen and confirmed.
+	 * @return the index in the engine's Encounter of a living monster. Any other index is read as the first living monster.
+	 */
+	default int chooseTarget(GameEngine engine, Card card) {
+		return engine.getEncounter().firstAliveIndex();
+	}
+
+	/**
+	 * Called whenever the game pauses for the player to read what happened, before the game continues.
+	 * @param engine the engine running the game.
+	 */
+	void acknowledge(GameEngine engine);
+
+	/**
+	 * Chooses which card to add to the player's deck after a won combat, when the engine ranks its rewards(see GameEngine.setRewardEvaluator).
+	 * Takes the best ranked card unless overridden.
+	 * @param engine the engine running the game.
+	 * @param ratings the candidate cards, best first.
+	 * @return the index in the list of the card to add.
+	 */
+	default int chooseReward(GameEngine engine, List<RewardEvaluator.Rating> ratings) {
+		return 0;
+	}
+
+	/**
+	 * Reads a card or reward number typed by a person or written in a script, without treating text that is not a number as an exception.
+	 * @param text the text to read; surrounding spaces are ignored.
+	 * @return the number, or -1 if the text is not a non-negative number of at most nine digits.
+	 */
+	static int parseIndex(String text) {
+		text = text.trim();
+		if (text.isEmpty() || text.length() > 9)
+			return -1;
+		int n = 0;
+		for (int i = 0; i < text.length(); i ++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			n = n * 10 + c - '0';
+		}
+		return n;
+	}
+
+}
@@ -1,15 +1,45 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 
 /**
  * Holds a deck, discard pile, draw pile and hand, each holding Card objects, and methods to mimic the functionality of a deck of cards.
+ * Cards are immutable and shared, so each distinct Card is stored once in the Deck's card table and the piles only hold int ids into that table.
+ * The draw pile is a circular buffer, so drawing and reshuffling never shift or copy the rest of the pile.
+ * 
+ * The Deck keeps a Zobrist hash of each pile's contents, updated as cards move between piles(see getHash()). Piles are hashed as unordered
+ * collections: the order of the draw pile is hidden from the player, and the order of the other piles does not affect play.
  */
 public class Deck {
-	private ArrayList<Card> deck = new ArrayList<Card>();
-	private ArrayList<Card> discardPile = new ArrayList<Card>();
-	private ArrayList<Card> drawPile = new ArrayList<Card>();
-	private ArrayList<Card> hand = new ArrayList<Card>();
+	private CardPile deck = new CardPile();
+	private CardPile discardPile = new CardPile();
+	private CardPile drawPile = new CardPile();
+	private CardPile hand = new CardPile();
+	
+	//Every distinct Card held by this Deck, indexed by the ids stored in the piles above.
+	private Card[] cards = new Card[8];
+	private long[] keys = new long[8];
+	private int cardCount;
+	private IdentityHashMap<Card, Integer> ids = new IdentityHashMap<Card, Integer>();
+	//Whether the card table is shared with a saved State, in which case it must be copied before a card is added.
+	private boolean tableShared;
+	
+	//The sum of the Zobrist keys of the cards in each pile.
+	private long deckHash, discardHash, drawHash, handHash;
+	
+	//Counts calls of startTurn, deciding which are timed for Metrics.
+	private int startTurnTicks;
+	
+	//Used to shuffle the piles; if null, the calling thread's GameRandom is used.
+	private GameRandom random;
+	
+	//Read-only views of the piles above, created once and handed out instead of copies. See viewDeck() and the other view methods below.
+	private List<Card> deckView, discardView, drawView, handView;
 	
 	
 	/**
@@ -18,7 +48,7 @@ public class Deck {
 	 */
 	public Deck (Card...cards) {
 		for (Card c : cards)
-			deck.add(checkTypeAndCopy(c));
+			addToDeck(c);
 	}
 	
 	/**
@@ -26,21 +56,117 @@ public class Deck {
 	 * @param d Deck object to clone.
 	 */
 	public Deck (Deck d) {
-		this.deck = d.getDeck();
-		this.discardPile = d.getDiscardPile();
-		this.drawPile = d.getDrawPile();
-		this.hand = d.getHand();
+		this.cards = Arrays.copyOf(d.cards, d.cards.length);
+		this.keys = Arrays.copyOf(d.keys, d.keys.length);
+		this.cardCount = d.cardCount;
+		this.ids = new IdentityHashMap<Card, Integer>(d.ids);
+		this.deck = new CardPile(d.deck);
+		this.discardPile = new CardPile(d.discardPile);
+		this.drawPile = new CardPile(d.drawPile);
+		this.hand = new CardPile(d.hand);
+		copyHashes(d.deckHash, d.discardHash, d.drawHash, d.handHash);
 	}
 	
 	/**
-	 * Used locally to reduce repetition, safely clones a given ArrayList of Cards.
-	 * @param cardList ArrayList of Cards to clone.
-	 * @return cloned list.
+	 * @return an independent copy of this Deck and all of its piles. Use this when the piles need to be kept as they are now; to simply look at them, use the view methods.
+	 */
+	public Deck snapshot() {
+		return new Deck(this);
+	}
+	
+	/**
+	 * Captures the contents of every pile. The State shares this Deck's arrays, which are only copied once either of them changes, so saving is cheap.
+	 * @return the captured State.
+	 */
+	State saveState() {
+		tableShared = true;
+		return new State(this);
+	}
+
+	/**
+	 * Puts back the contents of every pile as they were when a State was captured, from this Deck or from a copy of it.
+	 * @param s the State to put back.
+	 */
+	void restoreState(State s) {
+		cards = s.cards;
+		keys = s.keys;
+		cardCount = s.cardCount;
+		ids = s.ids;
+		tableShared = true;
+		deck.shareFrom(s.deck);
+		discardPile.shareFrom(s.discardPile);
+		drawPile.shareFrom(s.drawPile);
+		hand.shareFrom(s.hand);
+		copyHashes(s.deckHash, s.discardHash, s.drawHash, s.handHash);
+	}
+
+	/**
+	 * Private utility method, sets the hash of every pile.
 	 */
-	private static ArrayList<Card> clone (ArrayList<Card> cardList) {
-		ArrayList<Card> newList = new ArrayList<Card>();
-		for (Card c: cardList)
-			newList.add(checkTypeAndCopy(c));
+	private void copyHashes(long deckHash, long discardHash, long drawHash, long handHash) {
+		this.deckHash = deckHash;
+		this.discardHash = discardHash;
+		this.drawHash = drawHash;
+		this.handHash = handHash;
+	}
+
+	/**
+	 * @return a hash of the contents of every pile, kept up to date as cards move. Decks holding the same cards in the same piles have the same hash,
+	 * whatever order the cards are in.
+	 */
+	public long getHash() {
+		return deckHash + discardHash * 0x9E3779B97F4A7C15L + drawHash * 0xC2B2AE3D27D4EB4FL + handHash * 0x165667B19E3779F9L;
+	}
+
+	/**
+	 * Sets the generator used to shuffle this Deck's piles. Copies of the Deck do not share it.
+	 * @param random the generator to use, or null to use the calling thread's GameRandom.
+	 */
+	public void setRandom(GameRandom random) {
+		this.random = random;
+	}
+	
+	/**
+	 * Used locally to get the generator to shuffle with.
+	 */
+	private GameRandom random() {
+		return random != null ? random : GameRandom.current();
+	}
+	
+	/**
+	 * Used locally to find the id of a given Card in the card table, adding it to the table if this Deck has not held it before.
+	 * @param aCard the Card to look up.
+	 * @return the Card's id.
+	 */
+	private int idOf(Card aCard) {
+		Integer id = ids.get(aCard);
+		if (id != null)
+			return id;
+		if (tableShared) {
+			cards = Arrays.copyOf(cards, cards.length);
+			keys = Arrays.copyOf(keys, keys.length);
+			ids = new IdentityHashMap<Card, Integer>(ids);
+			tableShared = false;
+		}
+		if (cardCount == cards.length) {
+			cards = Arrays.copyOf(cards, cardCount * 2);
+			keys = Arrays.copyOf(keys, cardCount * 2);
+		}
+		cards[cardCount] = aCard;
+		keys[cardCount] = Zobrist.key(aCard);
+		ids.put(aCard, cardCount);
+		return cardCount ++;
+	}
+	
+	/**
+	 * Used locally to reduce repetition, copies the Cards in a given pile into a new ArrayList.
+	 * @param pile the pile to copy.
+	 * @return copied list.
+	 */
+	private ArrayList<Card> clone (CardPile pile) {
+		ArrayList<Card> newList = new ArrayList<Card>(pile.size());
+		for (int i = 0; i < pile.size(); i ++)
+			newList.add(cards[pile.get(i)]);
 		return newList;
 	}
 	
@@ -50,7 +176,7 @@ public class Deck {
 	public String handToString() {
 		String s = "";
 		for (int i = 0; i < hand.size(); i ++) {
-			s += "\n" + i + ": " + hand.get(i).getName();
+			s += "\n" + i + ": " + cards[hand.get(i)].getName();
 		}
 		return s;
 	}
@@ -59,8 +185,10 @@ public class Deck {
 	 * Fills the draw pile with all cards present in the deck.
 	 */
 	public void startCombat() {
-		drawPile = clone(deck);
-		Collections.shuffle(drawPile);
+		drawPile.clear();
+		drawPile.addAll(deck);
+		drawHash = deckHash;
+		drawPile.shuffle(random());
 	}
 	
 	/**
@@ -70,60 +198,122 @@ public class Deck {
 		drawPile.clear();
 		hand.clear();
 		discardPile.clear();
+		drawHash = handHash = discardHash = 0;
 	}
 	
 	/**
-	 * If less than 5 cards remain in the draw pile, shuffles the discard pile and moves it to the draw pile. Moves 5 cards from the draw pile to the hand. 
+	 * If less than 5 cards remain in the draw pile, shuffles the discard pile and moves it to the draw pile. Moves 5 cards from the draw pile to the hand,
+	 * or as many as there are if fewer than 5 remain.
 	 */
 	public void startTurn() {
+		long start = Metrics.ENABLED && Metrics.sampled(startTurnTicks ++) ? System.nanoTime() : 0;
 		if (drawPile.size() < 5) {
-			Collections.shuffle(discardPile);
-			drawPile.addAll(clone(discardPile));
+			discardPile.shuffle(random());
+			drawPile.addAll(discardPile);
 			discardPile.clear();
+			drawHash += discardHash;
+			discardHash = 0;
 		}
 		
-		for (int i = 0; i < 5; i ++) {
-			hand.add(checkTypeAndCopy(drawPile.get(0)));
-			drawPile.remove(0);
+		for (int i = 0; i < 5 && drawPile.size() > 0; i ++) {
+			int id = drawPile.poll();
+			hand.add(id);
+			drawHash -= keys[id];
+			handHash += keys[id];
 		}
+		if (Metrics.ENABLED && start != 0)
+			Metrics.DECK_START_TURN.record(System.nanoTime() - start);
 	}
 	
 	/**
 	 * Moves the hand to the discard pile.
 	 */
 	public void endTurn() {
-		discardPile.addAll(clone(hand));
+		discardPile.addAll(hand);
 		hand.clear();
+		discardHash += handHash;
+		handHash = 0;
 	}
 
 	/**
-	 * @return all cards in the deck.
+	 * @return a copy of all cards in the deck.
 	 */
 	public ArrayList<Card> getDeck() {
 		return clone(deck);
 	}
 
 	/**
-	 * @return the Deck's discard pile.
+	 * @return a copy of the Deck's discard pile.
 	 */
 	public ArrayList<Card> getDiscardPile() {
 		return clone(discardPile);
 	}
 
 	/**
-	 * @return return the Deck's draw pile.
+	 * @return a copy of the Deck's draw pile.
 	 */
 	public ArrayList<Card> getDrawPile() {
 		return clone(drawPile);
 	}
 
 	/**
-	 * @return return the Deck's hand.
+	 * @return a copy of the Deck's hand.
 	 */
 	public ArrayList<Card> getHand() {
 		return clone(hand);
 	}
 
+	/**
+	 * @return a read-only view of all cards in the deck. The view is not a copy: it always reflects the deck's current contents.
+	 */
+	public List<Card> viewDeck() {
+		if (deckView == null)
+			deckView = new PileView(deck);
+		return deckView;
+	}
+
+	/**
+	 * @return a read-only view of the discard pile. The view is not a copy: it always reflects the pile's current contents.
+	 */
+	public List<Card> viewDiscardPile() {
+		if (discardView == null)
+			discardView = new PileView(discardPile);
+		return discardView;
+	}
+
+	/**
+	 * @return a read-only view of the draw pile, next card to be drawn first. The view is not a copy: it always reflects the pile's current contents.
+	 */
+	public List<Card> viewDrawPile() {
+		if (drawView == null)
+			drawView = new PileView(drawPile);
+		return drawView;
+	}
+
+	/**
+	 * @return a read-only view of the hand. The view is not a copy: it always reflects the hand's current contents.
+	 */
+	public List<Card> viewHand() {
+		if (handView == null)
+			handView = new PileView(hand);
+		return handView;
+	}
+
+	/**
+	 * @param cardIndex location in the hand of the desired Card.
+	 * @return the Card at the given index in the hand, without removing it.
+	 */
+	public Card getCardInHand(int cardIndex) {
+		return cards[hand.get(cardIndex)];
+	}
+
+	/**
+	 * @return amount of cards in the hand.
+	 */
+	public int getHandSize() {
+		return this.hand.size();
+	}
+
 	/**
 	 * @return amount of cards in the deck.
 	 */
@@ -149,56 +339,68 @@ public class Deck {
 	 * @param aCard add this card to the deck.
 	 */
 	public void addToDeck(Card aCard) {
-		deck.add(checkTypeAndCopy(aCard));
+		int id = idOf(aCard);
+		deck.add(id);
+		deckHash += keys[id];
 	}
 
 	/**
 	 * @param aCard add this card to the discard pile.
 	 */
 	public void addToDiscardPile(Card aCard) {
-		discardPile.add(checkTypeAndCopy(aCard));
+		int id = idOf(aCard);
+		discardPile.add(id);
+		discardHash += keys[id];
 	}
 
 	/**
 	 * @param aCard add this card to the draw pile.
 	 */
 	public void addToDrawPile(Card aCard) {
-		drawPile.add(checkTypeAndCopy(aCard));
+		int id = idOf(aCard);
+		drawPile.add(id);
+		drawHash += keys[id];
 	}
 
 	/**
 	 * @param aCard add this card to the hand.
 	 */
 	public void addToHand(Card aCard) {
-		hand.add(checkTypeAndCopy(aCard));
+		int id = idOf(aCard);
+		hand.add(id);
+		handHash += keys[id];
 	}
 
 	/**
 	 * @param Cards add this list of cards to the deck.
 	 */
 	public void addToDeck(List<Card> Cards) {
-		deck.addAll(Cards);
+		for (Card c : Cards)
+			addToDeck(c);
 	}
 
 	/**
 	 * @param Cards add this list of cards to the discard pile.
 	 */
 	public void addToDiscardPile(List<Card> Cards) {
-		discardPile.addAll(Cards);
+		for (Card c : Cards)
+			addToDiscardPile(c);
 	}
 
 	/**
 	 * @param Cards add this list of cards to the draw pile.
 	 */
 	public void addToDrawPile(List<Card> Cards) {
-		drawPile.addAll(Cards);
+		for (Card c : Cards)
+			addToDrawPile(c);
 	}
 
 	/**
 	 * @param Cards add this list of cards to the hand.
 	 */
 	public void addToHand(List<Card> Cards) {
-		hand.addAll(Cards);
+		for (Card c : Cards)
+			addToHand(c);
 	}
 
 	/**
@@ -207,10 +409,11 @@ public class Deck {
 	 * @return the Card at the given index in the hand.
 	 */
 	public Card drawFromHand(int cardIndex) {
-		Card aCard = checkTypeAndCopy(hand.get(cardIndex));
-		discardPile.add(aCard);
-		hand.remove(cardIndex);
-		return aCard;
+		int id = hand.remove(cardIndex);
+		discardPile.add(id);
+		handHash -= keys[id];
+		discardHash += keys[id];
+		return cards[id];
 	}
 
 	/**
@@ -219,24 +422,107 @@ public class Deck {
 	 * @return the Card at the given index in the deck.
 	 */
 	public Card drawFromDeck(int cardIndex) {
-		Card aCard = checkTypeAndCopy(deck.get(cardIndex));
-		return aCard;
-	}
-	/**
-	* Checks the type of the card and creates a copy of it
-	* basic cards only belong to the superclass Card, skill cards belong to the subclass Skill.
-	* @param aCard card to be checked and copied.
-	* @return copy of the card returned.
-	*/
-	private static Card checkTypeAndCopy(Card aCard){
-		Card copyCard;
-		if (aCard instanceof Skill) {
-			copyCard = new Skill((Skill)aCard);
+		return cards[deck.get(cardIndex)];
+	}
+
+	/**
+	 * The contents of a Deck's piles at one moment. See saveState and restoreState.
+	 */
+	static class State {
+		private final Card[] cards;
+		private final long[] keys;
+		private final int cardCount;
+		private final long deckHash, discardHash, drawHash, handHash;
+		private final IdentityHashMap<Card, Integer> ids;
+		private final CardPile deck = new CardPile(), discardPile = new CardPile(), drawPile = new CardPile(), hand = new CardPile();
+
+		private State(Deck d) {
+			cards = d.cards;
+			keys = d.keys;
+			cardCount = d.cardCount;
+			deckHash = d.deckHash;
+			discardHash = d.discardHash;
+			drawHash = d.drawHash;
+			handHash = d.handHash;
+			ids = d.ids;
+			deck.shareFrom(d.deck);
+			discardPile.shareFrom(d.discardPile);
+			drawPile.shareFrom(d.drawPile);
+			hand.shareFrom(d.hand);
 		}
-		else {
-			copyCard = new Card(aCard);
+
+		/**
+		 * Reads a State written by write. Cards are looked up by name, so CardsUtil must already be loaded.
+		 * @param in where to read the State from.
+		 * @throws IOException if the State cannot be read, or names a card CardsUtil does not have.
+		 */
+		State(DataInput in) throws IOException {
+			cardCount = in.readInt();
+			cards = new Card[Math.max(8, cardCount)];
+			keys = new long[cards.length];
+			ids = new IdentityHashMap<Card, Integer>();
+			for (int i = 0; i < cardCount; i ++) {
+				String name = in.readUTF();
+				cards[i] = CardsUtil.get(name);
+				if (cards[i] == null)
+					throw new IOException("unknown card: " + name);
+				keys[i] = Zobrist.key(cards[i]);
+				ids.put(cards[i], i);
+			}
+			deck.read(in, cardCount);
+			discardPile.read(in, cardCount);
+			drawPile.read(in, cardCount);
+			hand.read(in, cardCount);
+			deckHash = sum(deck);
+			discardHash = sum(discardPile);
+			drawHash = sum(drawPile);
+			handHash = sum(hand);
+		}
+
+		/**
+		 * Writes the State, with each distinct card written by name.
+		 * @param out where to write it.
+		 */
+		void write(DataOutput out) throws IOException {
+			out.writeInt(cardCount);
+			for (int i = 0; i < cardCount; i ++)
+				out.writeUTF(cards[i].getName());
+			deck.write(out);
+			discardPile.write(out);
+			drawPile.write(out);
+			hand.write(out);
+		}
+
+		/**
+		 * Private utility method, adds up the keys of the cards in a pile.
+		 */
+		private long sum(CardPile pile) {
+			long h = 0;
+			for (int i = 0; i < pile.size(); i ++)
+				h += keys[pile.get(i)];
+			return h;
+		}
+	}
+
+	/**
+	 * A read-only List of the Cards in one of the Deck's piles, looked up through the card table each time they are accessed.
+	 */
+	private class PileView extends AbstractList<Card> {
+		private final CardPile pile;
+
+		private PileView(CardPile pile) {
+			this.pile = pile;
+		}
+
+		@Override
+		public Card get(int index) {
+			return cards[pile.get(index)];
+		}
+
+		@Override
+		public int size() {
+			return pile.size();
 		}
-		return copyCard;
 	}
 
 }
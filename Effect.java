@@ -0,0 +1,149 @@
+/**
+ * One change a card makes to an attribute when it is played: an amount added to the attribute at once, modifiers added to the start and end of
+ * each turn, and how long those modifiers last. An Effect cannot be changed once created, so cards share them freely.
+ *
+ * Each attribute is changed on the card's user or its target. Unless the card file says otherwise, strength, dexterity, regeneration and armour
+ * are the user's and weak, frail, vulnerable, poison and constricted are the target's, as they always have been.
+ */
+public final class Effect {
+
+	/** Attribute names by EntityStore kind. */
+	public static final String[] NAMES = {"strength", "dexterity", "weak", "frail", "vulnerable", "regeneration", "poison", "constricted", "armour"};
+
+	//Whether each kind is changed on the target unless stated otherwise.
+	private static final boolean[] ON_TARGET = {false, false, true, true, true, false, true, true, false};
+
+	private final int kind;
+	private final boolean onTarget;
+	private final int current, start, end, duration;
+
+	/**
+	 * Creates an effect on the side its attribute is normally changed on.
+	 * @param attribute the attribute's name(see kind).
+	 * @param current added to the attribute at once.
+	 * @param start added to the attribute at the start of each turn.
+	 * @param end added to the attribute at the end of each turn.
+	 * @param duration how many turns the start and end modifiers last; -1 for the rest of the combat.
+	 * @throws IllegalArgumentException if the attribute is unknown.
+	 */
+	public Effect(String attribute, int current, int start, int end, int duration) {
+		this(kind(attribute), ON_TARGET[kind(attribute)], current, start, end, duration);
+	}
+
+	/**
+	 * Creates an effect.
+	 * @param kind the attribute's EntityStore kind.
+	 * @param onTarget true to change the target's attribute, false to change the user's.
+	 * @param current added to the attribute at once.
+	 * @param start added to the attribute at the start of each turn.
+	 * @param end added to the attribute at the end of each turn.
+	 * @param duration how many turns the start and end modifiers last; -1 for the rest of the combat.
+	 */
+	public Effect(int kind, boolean onTarget, int current, int start, int end, int duration) {
+		if (kind < 0 || kind >= EntityStore.ATTRIBUTES)
+			throw new IllegalArgumentException("unknown attribute kind " + kind);
+		this.kind = kind;
+		this.onTarget = onTarget;
+		this.current = current;
+		this.start = start;
+		this.end = end;
+		this.duration = duration;
+	}
+
+	/**
+	 * Reads an effect as written in a card file: the attribute, optionally prefixed with "user:" or "target:" to choose the side it is changed on,
+	 * then the current, start and end amounts and the duration.
+	 * @param fields the five fields.
+	 * @param first the index of the attribute's field.
+	 * @return the effect.
+	 * @throws IllegalArgumentException if the attribute is unknown or a number cannot be read.
+	 */
+	public static Effect parse(String[] fields, int first) {
+		String attribute = fields[first].trim();
+		int colon = attribute.indexOf(':');
+		String side = colon < 0 ? null : attribute.substring(0, colon);
+		int kind = kind(attribute.substring(colon + 1));
+		boolean onTarget = ON_TARGET[kind];
+		if ("user".equals(side))
+			onTarget = false;
+		else if ("target".equals(side))
+			onTarget = true;
+		else if (side != null)
+			throw new IllegalArgumentException("unknown side '" + side + "', expected user or target");
+		int[] n = new int[4];
+		for (int i = 0; i < 4; i ++) {
+			String field = fields[first + 1 + i].trim();
+			try {
+				n[i] = Integer.parseInt(field);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("field " + (first + 2 + i) + " ('" + field + "') is not a number");
+			}
+		}
+		return new Effect(kind, onTarget, n[0], n[1], n[2], n[3]);
+	}
+
+	/**
+	 * @param attribute an attribute's name, in any case. The old spelling "constricited" is read as constricted.
+	 * @return the attribute's EntityStore kind.
+	 * @throws IllegalArgumentException if there is no such attribute.
+	 */
+	public static int kind(String attribute) {
+		String name = attribute.trim().toLowerCase();
+		if (name.equals("constricited"))
+			return EntityStore.CONSTRICTED;
+		for (int k = 0; k < NAMES.length; k ++)
+			if (NAMES[k].equals(name))
+				return k;
+		throw new IllegalArgumentException("unknown attribute '" + attribute + "'");
+	}
+
+	/**
+	 * @return the attribute's EntityStore kind.
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return the attribute's name.
+	 */
+	public String getAttribute() {
+		return NAMES[kind];
+	}
+
+	/**
+	 * @return whether the target's attribute is changed, rather than the user's.
+	 */
+	public boolean isOnTarget() {
+		return onTarget;
+	}
+
+	/**
+	 * @return the amount added to the attribute at once.
+	 */
+	public int getCurrent() {
+		return current;
+	}
+
+	/**
+	 * @return the amount added to the attribute at the start of each turn.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the amount added to the attribute at the end of each turn.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return how many turns the start and end modifiers last; -1 for the rest of the combat.
+	 */
+	public int getDuration() {
+		return duration;
+	}
+
+}
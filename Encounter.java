@@ -0,0 +1,195 @@
+/**
+ * A group of Monsters the player fights at once. The player's cards hit one chosen monster, or every living one if they are area cards(see
+ * Card.isArea), and the combat is won once every monster has been defeated.
+ *
+ * The monsters' turn is resolved as one pass over the group rather than monster by monster: their intents are chosen together at the start of the
+ * player's turn(chooseMoves), and when the turn ends each living monster's move works out its damage and applies its other effects in order, then
+ * the player takes all of the damage in one sweep(act). Damage is taken from armour first and armour cannot drop below zero, so taking the sum at once
+ * leaves the player exactly as taking each hit in turn would. Only a move that changes the player's armour has to take the damage before it first(see
+ * Card.attack).
+ */
+public class Encounter {
+
+	private final Monster[] monsters;
+
+	/**
+	 * Creates an encounter with the given monsters, in the order they act and are listed in.
+	 * @param monsters the monsters to fight; there must be at least one, and no monster may appear twice.
+	 * @throws IllegalArgumentException if there are no monsters, or a monster appears twice.
+	 */
+	public Encounter(Monster... monsters) {
+		if (monsters.length == 0)
+			throw new IllegalArgumentException("an encounter needs at least one monster");
+		for (int i = 0; i < monsters.length; i ++)
+			for (int j = 0; j < i; j ++)
+				if (monsters[i] == monsters[j])
+					throw new IllegalArgumentException(monsters[i].getName() + " appears twice in the encounter; use a copy");
+		this.monsters = monsters.clone();
+	}
+
+	/**
+	 * Creates an encounter with a copy of each monster of another.
+	 * @param e the encounter to copy.
+	 */
+	public Encounter(Encounter e) {
+		monsters = new Monster[e.monsters.length];
+		for (int i = 0; i < monsters.length; i ++)
+			monsters[i] = new Monster(e.monsters[i]);
+	}
+
+	/**
+	 * @return the number of monsters, living or not.
+	 */
+	public int size() {
+		return monsters.length;
+	}
+
+	/**
+	 * @param index the monster's index, counting from 0.
+	 * @return the monster at the index.
+	 */
+	public Monster get(int index) {
+		return monsters[index];
+	}
+
+	/**
+	 * @return a copy of the array of monsters; the monsters themselves are not copied.
+	 */
+	public Monster[] getMonsters() {
+		return monsters.clone();
+	}
+
+	/**
+	 * @return whether any of the monsters is alive.
+	 */
+	public boolean alive() {
+		for (Monster m : monsters)
+			if (m.alive())
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return the number of living monsters.
+	 */
+	public int living() {
+		int n = 0;
+		for (Monster m : monsters)
+			if (m.alive())
+				n ++;
+		return n;
+	}
+
+	/**
+	 * @return the first living monster, or the first monster if none are alive.
+	 */
+	public Monster firstAlive() {
+		for (Monster m : monsters)
+			if (m.alive())
+				return m;
+		return monsters[0];
+	}
+
+	/**
+	 * @return the index of the first living monster, or -1 if none are alive.
+	 */
+	public int firstAliveIndex() {
+		for (int i = 0; i < monsters.length; i ++)
+			if (monsters[i].alive())
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @return the sum of the health of every monster.
+	 */
+	public int totalHealth() {
+		int health = 0;
+		for (Monster m : monsters)
+			health += Math.max(0, m.getHealth());
+		return health;
+	}
+
+	/**
+	 * @return the sum of the maximum health of every monster.
+	 */
+	public int totalMaxHealth() {
+		int health = 0;
+		for (Monster m : monsters)
+			health += m.getMaxHealth();
+		return health;
+	}
+
+	/**
+	 * @return the monsters' names, such as "Slime", "Slime and Louse" or "Slime, Louse and Jaw Worm".
+	 */
+	public String getName() {
+		StringBuilder s = new StringBuilder(monsters[0].getName());
+		for (int i = 1; i < monsters.length; i ++)
+			s.append(i == monsters.length - 1 ? " and " : ", ").append(monsters[i].getName());
+		return s.toString();
+	}
+
+	/**
+	 * Sets the generator used to pick every monster's random moves.
+	 * @param random the generator to use, or null to use the calling thread's GameRandom.
+	 */
+	public void setRandom(GameRandom random) {
+		for (Monster m : monsters)
+			m.setRandom(random);
+	}
+
+	/**
+	 * Chooses the next move of every living monster, in order.
+	 */
+	public void chooseMoves() {
+		for (Monster m : monsters)
+			if (m.alive())
+				m.setMove();
+	}
+
+	/**
+	 * Lets every living monster use its move on the player, dealing all of their damage in one sweep once each move's other effects have been applied.
+	 * @param player the Entity the monsters attack.
+	 */
+	public void act(Entity player) {
+		int damage = 0;
+		for (Monster m : monsters)
+			if (m.alive())
+				damage = m.getMove().attack(m, player, damage);
+		player.getStore().takeDamage(player.getSlot(), damage);
+	}
+
+	/**
+	 * @return the intentions of every living monster, one per line.
+	 */
+	public String intentions() {
+		StringBuilder s = new StringBuilder();
+		for (Monster m : monsters)
+			if (m.alive())
+				s.append(s.length() == 0 ? "" : "\n").append(m.intentions());
+		return s.toString();
+	}
+
+	/**
+	 * @return the actions of every living monster following the use of their moves, one per line.
+	 */
+	public String actionReport() {
+		StringBuilder s = new StringBuilder();
+		for (Monster m : monsters)
+			if (m.alive())
+				s.append(s.length() == 0 ? "" : "\n").append(m.actionReport());
+		return s.toString();
+	}
+
+	/**
+	 * @return a hash of every monster, which depends on their order, so that two encounters of the same monsters in different states differ.
+	 */
+	public long getHash() {
+		long h = 0;
+		for (Monster m : monsters)
+			h = h * 31 + GameRandom.mix64(m.getHash());
+		return h;
+	}
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Checks that a group's batched monster turn(Encounter.act) leaves the player and every monster exactly as the monsters using their moves one after
+ * another would. The groups are of one to four monsters with random health, strength(negative included), weak and modifiers. Each monster has a
+ * single move: a monster card of cards.txt, or a random card with any damage, block and effects on either side. The player has random health,
+ * armour and vulnerability.
+ *
+ * Run it from the folder holding cards.txt. Prints a summary if every turn matched, and otherwise fails with an IllegalStateException naming the trial.
+ */
+public class EncounterCheck {
+
+	/**
+	 * Runs the check.
+	 * @param args optionally, the number of turns to check(200000 by default).
+	 */
+	public static void main(String[] args) {
+		CardsUtil.load();
+		int trials = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		GameRandom random = new GameRandom(1);
+		int hits = 0;
+
+		for (int trial = 0; trial < trials; trial ++) {
+			Monster[] group = new Monster[1 + random.nextInt(4)];
+			for (int i = 0; i < group.length; i ++)
+				group[i] = randomMonster(random, i);
+			Entity player = randomPlayer(random);
+
+			Monster[] expectedGroup = new Monster[group.length];
+			for (int i = 0; i < group.length; i ++)
+				expectedGroup[i] = new Monster(group[i]);
+			Entity expectedPlayer = new Entity(player);
+
+			Encounter encounter = new Encounter(group);
+			encounter.chooseMoves();
+			encounter.act(player);
+			for (Monster m : expectedGroup) {
+				if (m.alive()) {
+					m.setMove();
+					m.getMove().use(m, expectedPlayer);
+					hits ++;
+				}
+			}
+
+			compare(trial, "the player", expectedPlayer, player);
+			for (int i = 0; i < group.length; i ++)
+				compare(trial, "monster " + i, expectedGroup[i], group[i]);
+		}
+		System.out.println(trials + " monster turns, " + hits + " moves: every batched turn matched the moves used one at a time");
+	}
+
+	/**
+	 * Private utility method, creates a monster with random health, attributes and a single move. Some are already defeated.
+	 */
+	private static Monster randomMonster(GameRandom random, int index) {
+		Card move;
+		if (random.nextInt(2) == 0) {
+			move = CardsUtil.randomM(random);
+		} else {
+			Effect[] effects = new Effect[random.nextInt(3)];
+			for (int i = 0; i < effects.length; i ++)
+				effects[i] = new Effect(random.nextInt(EntityStore.ATTRIBUTES), random.nextInt(2) == 0, random.nextInt(7) - 3, random.nextInt(7) - 3,
+						random.nextInt(7) - 3, random.nextInt(4) - 1);
+			move = new Card(random.nextInt(5) - 1, random.nextInt(20) - 2, random.nextInt(10) - 2, effects, false, 0, "Random move", null);
+		}
+		Monster m = new Monster("Monster " + index, 40, move);
+		m.setHealth(random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(40));
+		m.getStrength().modifyVal(random.nextInt(13) - 8);
+		if (random.nextInt(3) == 0)
+			m.getWeak().modifyVal(1 + random.nextInt(2));
+		if (random.nextInt(4) == 0)
+			m.getStrength().addStartModifier(random.nextInt(5) - 2, random.nextInt(4) - 1);
+		return m;
+	}
+
+	/**
+	 * Private utility method, creates a player with random health, armour, vulnerability and modifiers.
+	 */
+	private static Entity randomPlayer(GameRandom random) {
+		Entity player = new Entity("Player", 80, 1 + random.nextInt(80), random.nextInt(4) == 0 ? 0 : random.nextInt(30), 3, 3);
+		if (random.nextInt(3) == 0)
+			player.getVulnerable().modifyVal(1 + random.nextInt(2));
+		if (random.nextInt(4) == 0)
+			player.getArmour().addEndModifier(random.nextInt(5) - 2, random.nextInt(4) - 1);
+		return player;
+	}
+
+	/**
+	 * Private utility method, fails if an Entity's state differs from the one it should be in.
+	 */
+	private static void compare(int trial, String who, Entity expected, Entity actual) {
+		if (expected.getHash() != actual.getHash() || expected.getHealth() != actual.getHealth())
+			throw new IllegalStateException("trial " + trial + ": " + who + " has health " + actual.getHealth() + " and armour "
+					+ actual.getArmour().getCurrentVal() + " instead of " + expected.getHealth() + " and " + expected.getArmour().getCurrentVal()
+					+ ", or different attributes");
+	}
+
+}
@@ -1,104 +1,119 @@
 /**
  * Contains basic behavior and traits to be used by both the Player and Monster Classes.
+ * An Entity's health, energy and attributes are held in a slot of an EntityStore; the Entity itself only holds its name and a view of each attribute.
  */
 public class Entity {
 	
 	private String name;
-	private int maxHealth;
-	private int health;
-	private int maxEnergy;
-	private int energy;
+	private final EntityStore store;
+	private final int slot;
 	
 	//The Entity's attributes impact the effectiveness of various actions. See descriptions of each attribute with their getters below.
 	private Attribute strength, dexterity, weak, frail, vulnerable, regeneration, poison, constricted, armour;
 
 	/**
-	 * Creates an Entity with a given name, maximum health, health, armour, and energy.
+	 * Creates an Entity with a given name, maximum health, health, armour, and energy, held in its own private EntityStore.
 	 */
 	public Entity(String name, int maxHealth, int health, int armour, int maxEnergy, int energy) {
-		strength = new Attribute(-999, 0);
-		dexterity = new Attribute(-999, 0);
-		weak = new Attribute(0, -1);
-		frail = new Attribute(0, -1);
-		vulnerable = new Attribute(0, -1);
-		regeneration = new Attribute(0, -1);
-		poison = new Attribute(0, -1);
-		constricted = new Attribute(0, 0);
-		this.armour = new Attribute(0);
+		this(new EntityStore(1), name, maxHealth, health, armour, maxEnergy, energy);
+	}
+
+	/**
+	 * Creates an Entity with a given name, maximum health, health, armour, and energy, held in a new slot of the given EntityStore.
+	 */
+	public Entity(EntityStore store, String name, int maxHealth, int health, int armour, int maxEnergy, int energy) {
+		this.store = store;
+		this.slot = store.allocate();
+		createAttributes();
 		
 		this.name = name;
-		this.maxHealth = maxHealth;
-		this.health = health;
-		this.maxEnergy = maxEnergy;
-		this.energy = energy;
+		store.setStats(slot, maxHealth, health, maxEnergy, energy);
 		this.armour.modifyVal(armour);
 		
 	}
 
 	/**
-	 * Clones a given Entity.
+	 * Clones a given Entity into its own private EntityStore.
 	 * @param anEntity The Entity to clone.
 	 */
 	public Entity(Entity anEntity) {
-		this(anEntity.getName(), anEntity.getMaxHealth(), anEntity.getHealth(), anEntity.getArmour().getCurrentVal(), anEntity.getMaxEnergy(), anEntity.getEnergy());
-		strength = new Attribute(anEntity.getStrength());
-		dexterity = new Attribute(anEntity.getDexterity());
-		weak = new Attribute(anEntity.getWeak());
-		frail = new Attribute(anEntity.getFrail());
-		vulnerable = new Attribute(anEntity.getVulnerable());
-		regeneration = new Attribute(anEntity.getRegeneration());
-		poison = new Attribute(anEntity.getPoison());
-		constricted = new Attribute(anEntity.getConstricted());
-		armour = new Attribute(anEntity.getArmour());
+		this.store = new EntityStore(1);
+		this.slot = store.allocate();
+		createAttributes();
+		this.name = anEntity.getName();
+		store.copySlot(anEntity.store, anEntity.slot, slot);
+	}
+	
+	/**
+	 * Private utility method, creates the views of each of the Entity's attributes.
+	 */
+	private void createAttributes() {
+		int row = slot * EntityStore.ATTRIBUTES;
+		strength = new Attribute(store, row + EntityStore.STRENGTH);
+		dexterity = new Attribute(store, row + EntityStore.DEXTERITY);
+		weak = new Attribute(store, row + EntityStore.WEAK);
+		frail = new Attribute(store, row + EntityStore.FRAIL);
+		vulnerable = new Attribute(store, row + EntityStore.VULNERABLE);
+		regeneration = new Attribute(store, row + EntityStore.REGENERATION);
+		poison = new Attribute(store, row + EntityStore.POISON);
+		constricted = new Attribute(store, row + EntityStore.CONSTRICTED);
+		armour = new Attribute(store, row + EntityStore.ARMOUR);
+	}
+	
+	/**
+	 * @return the EntityStore holding this Entity's state.
+	 */
+	public EntityStore getStore() {
+		return store;
+	}
+	
+	/**
+	 * @return the slot of the EntityStore holding this Entity's state.
+	 */
+	public int getSlot() {
+		return slot;
+	}
+	
+	/**
+	 * @return a hash of the Entity's health, energy and attributes, kept up to date as they change. Entities in the same state have the same hash.
+	 */
+	public long getHash() {
+		return store.getHash(slot);
 	}
 	
 	/**
 	 * Applies the Entity's regeneration and poison. Updates the Entity's attributes.
 	 */
 	public void startTurn() {
-		for (Attribute a : new Attribute[] {strength, dexterity, weak, vulnerable, regeneration, poison, constricted, armour})
-			a.startTurn();
-		heal(regeneration.getCurrentVal());
-		damage(poison.getCurrentVal());
+		store.startTurn(slot);
 	}
 	
 	/**
 	 * Applies damage from the Entity's constricted attribute. Updates the Entity's attributes.
 	 */
 	public void endTurn() {
-		for (Attribute a : new Attribute[] {strength, dexterity, weak, vulnerable, regeneration, poison, constricted, armour})
-			a.endTurn();
-		damage(constricted.getCurrentVal());
+		store.endTurn(slot);
 	}
 	
 	/**
 	 * Clears all modifiers from each attribute.
 	 */
 	public void startCombat() {
-		for (Attribute a : new Attribute[] {strength, dexterity, weak, vulnerable, regeneration, poison, constricted, armour})
-			a.startCombat();
+		store.startCombat(slot);
 	}
 
 	/**
 	 * @param amount damage to deal to the entity. Deals 25% more damage if the Entity has any vulnerability. Damages armour first, then health.
 	 */
 	public void damage(int amount) {
-		
-		if (!vulnerable.equals(0)) {
-			amount *= 1.25;
-		}
-		
-		if (amount > 0) {
-			setHealth(health - Math.max(amount - armour.getCurrentVal(), 0));
-			armour.modifyVal(-amount);
-		}
+		store.damage(slot, amount);
 	}
 	
 	/**
 	 * @param amount heal this amount health (cannot exceed maximum health).
 	 */
 	public void heal(int amount) {
-		setHealth(health + amount);
+		store.heal(slot, amount);
 	}
 	
 	/**
@@ -106,7 +121,7 @@ public class Entity {
 	 */
 	public void useEnergy(int amount) {
 		if (amount > 0)
-			setEnergy(energy - amount);
+			setEnergy(store.energy[slot] - amount);
 	}
 	
 	/**
@@ -114,7 +129,7 @@ public class Entity {
 	 */
 	public void gainEnergy(int amount) {
 		if (amount > 0)
-			setEnergy(energy + amount);
+			setEnergy(store.energy[slot] + amount);
 	}
 	
 	/**
@@ -136,13 +151,7 @@ public class Entity {
 	 * Sets the Entity's health; if the given value is below 0, health is set to 0, and if it is above the Entity's maximum health, it is set to the Entity's maximum health.
 	 */
 	public void setHealth(int health) {
-		if (health >= maxHealth) {
-			this.health = maxHealth;
-		} else if (health <= 0) {
-			this.health = 0;
-		} else {
-			this.health = health;
-		}
+		store.setHealth(slot, health);
 	}
 
 	/**
@@ -150,9 +159,9 @@ public class Entity {
 	 */
 	public void setMaxHealth(int maximumHealth) {
 		if (maximumHealth >= 1) {
-			this.maxHealth = maximumHealth;
+			store.setMaxHealth(slot, maximumHealth);
 		} else {
-			this.maxHealth = 1;
+			store.setMaxHealth(slot, 1);
 		}
 	}
 	
@@ -161,9 +170,9 @@ public class Entity {
 	 */
 	public void setEnergy(int energy) {
 		if (energy >= 0) {
-			this.energy = energy;
+			store.setEnergy(slot, energy);
 		} else {
-			this.energy = 0;
+			store.setEnergy(slot, 0);
 		}
 	}
 	
@@ -172,9 +181,9 @@ public class Entity {
 	 */
 	public void setMaxEnergy(int maxEnergy) {
 		if (maxEnergy >= 0) {
-			this.maxEnergy = maxEnergy;
+			store.setMaxEnergy(slot, maxEnergy);
 		} else {
-			this.maxEnergy = 0;
+			store.setMaxEnergy(slot, 0);
 		}
 	}
 
@@ -189,28 +198,28 @@ public class Entity {
 	 * @return the Entity's maximum health.
 	 */
 	public int getMaxHealth() {
-		return maxHealth;
+		return store.maxHealth[slot];
 	}
 
 	/**
 	 * @return the Entity's health.
 	 */
 	public int getHealth() {
-		return health;
+		return store.health[slot];
 	}
 
 	/**
 	 * @return the Entity's energy.
 	 */
 	public int getEnergy() {
-		return energy;
+		return store.energy[slot];
 	}
 
 	/**
 	 * @return the Entity's maximum energy.
 	 */
 	public int getMaxEnergy() {
-		return maxEnergy;
+		return store.maxEnergy[slot];
 	}
 	
 	/**
@@ -281,7 +290,7 @@ public class Entity {
 	 * @return whether or not the Entity's health is above 0.
 	 */
 	public boolean alive() {
-		if (health > 0) {
+		if (store.health[slot] > 0) {
 			return true;
 		} else {
 			return false;
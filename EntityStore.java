@@ -0,0 +1,479 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Holds the state of many Entities in contiguous primitive arrays, one slot per Entity: health and energy, and the value, settings and modifiers of each
+ * of the Entity's nine attributes. Entity, Player and Monster objects are thin views over a slot, and their Attributes are views over the slot's attribute
+ * rows, so simulating many combats at once keeps all of their numbers packed together rather than spread over many small objects. An Entity created
+ * without a store gets a private store with a single slot.
+ * 
+ * startTurnAll() and endTurnAll() update every live slot in one pass. They cover everything Entity.startTurn() and Entity.endTurn() do, but not what
+ * subclasses add on top(for example, a Player's Deck).
+ * 
+ * Each slot also keeps a Zobrist hash of everything held in it, updated as each number changes rather than recomputed, so that search code can tell
+ * cheaply whether two Entities are in the same state. Every write to the arrays below goes through a method of this class so the hash stays correct.
+ * Modifiers are hashed as a set, so two slots whose modifiers differ only in the order they were added hash alike.
+ */
+public class EntityStore {
+
+	//Attribute kinds; an attribute's row is slot * ATTRIBUTES + kind.
+	public static final int STRENGTH = 0, DEXTERITY = 1, WEAK = 2, FRAIL = 3, VULNERABLE = 4, REGENERATION = 5, POISON = 6, CONSTRICTED = 7, ARMOUR = 8;
+	public static final int ATTRIBUTES = 9;
+
+	//The attributes updated each turn, in the order Entity has always updated them(frail is not included).
+	private static final int[] TICKED = {STRENGTH, DEXTERITY, WEAK, VULNERABLE, REGENERATION, POISON, CONSTRICTED, ARMOUR};
+
+	//Features hashed by Zobrist; an attribute's value, settings and default are keyed by the feature plus its kind. Modifier rows use 0 to 2 * ATTRIBUTES - 1.
+	private static final int HEALTH = 100, MAX_HEALTH = 101, ENERGY = 102, MAX_ENERGY = 103, VALUE = 200, SETTINGS = 300, DEFAULT = 400;
+
+	private int capacity, slotCount, freeCount;
+	private boolean[] live;
+	private int[] freeSlots;
+
+	int[] health, maxHealth, energy, maxEnergy;
+	private long[] hash;
+
+	//One element per attribute row.
+	boolean[] turnReset;
+	int[] minimumVal, modifyRate, defaultVal, currentVal;
+
+	//Row 2 * attribute row holds an attribute's start turn modifiers, and the row after it its end turn modifiers.
+	ModifierTable modifiers;
+
+	/**
+	 * Creates an empty store with room for a given number of slots. The store grows if more slots are allocated.
+	 * @param capacity the number of slots to make room for.
+	 */
+	public EntityStore(int capacity) {
+		this.capacity = Math.max(1, capacity);
+		live = new boolean[this.capacity];
+		freeSlots = new int[this.capacity];
+		health = new int[this.capacity];
+		maxHealth = new int[this.capacity];
+		energy = new int[this.capacity];
+		maxEnergy = new int[this.capacity];
+		hash = new long[this.capacity];
+		int rows = this.capacity * ATTRIBUTES;
+		turnReset = new boolean[rows];
+		minimumVal = new int[rows];
+		modifyRate = new int[rows];
+		defaultVal = new int[rows];
+		currentVal = new int[rows];
+		modifiers = new ModifierTable(rows * 2, ATTRIBUTES * 2);
+	}
+
+	/**
+	 * Private utility method, creates a store holding a single attribute row and no slots(see attributeStore).
+	 */
+	private EntityStore() {
+		hash = new long[1];
+		turnReset = new boolean[1];
+		minimumVal = new int[1];
+		modifyRate = new int[1];
+		defaultVal = new int[1];
+		currentVal = new int[1];
+		modifiers = new ModifierTable(2, ATTRIBUTES * 2);
+	}
+
+	/**
+	 * Creates a store for an Attribute created on its own: it holds only attribute row 0 and its two modifier rows, about a third of the room a
+	 * one-slot store takes. Only the attribute methods may be used on it. No slot can be allocated in it, and it cannot be rehashed or copied, so its
+	 * hash is never meaningful.
+	 * @return a new store, with row 0 set up as setUp leaves it for all zero settings.
+	 */
+	static EntityStore attributeStore() {
+		return new EntityStore();
+	}
+
+	/**
+	 * Reserves a slot with 0 health and energy, and attributes set up as every Entity's attributes are.
+	 * @return the new slot.
+	 */
+	public int allocate() {
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[-- freeCount];
+		} else {
+			if (slotCount == capacity)
+				grow(capacity * 2);
+			slot = slotCount ++;
+		}
+		live[slot] = true;
+		health[slot] = maxHealth[slot] = energy[slot] = maxEnergy[slot] = 0;
+		int row = slot * ATTRIBUTES;
+		setUp(row + STRENGTH, false, -999, 0, 0);
+		setUp(row + DEXTERITY, false, -999, 0, 0);
+		setUp(row + WEAK, false, 0, -1, 0);
+		setUp(row + FRAIL, false, 0, -1, 0);
+		setUp(row + VULNERABLE, false, 0, -1, 0);
+		setUp(row + REGENERATION, false, 0, -1, 0);
+		setUp(row + POISON, false, 0, -1, 0);
+		setUp(row + CONSTRICTED, false, 0, 0, 0);
+		setUp(row + ARMOUR, true, 0, 0, 0);
+		rehash(slot);
+		return slot;
+	}
+
+	/**
+	 * Frees a slot so that it can be allocated again. Any Entity viewing the slot must no longer be used.
+	 * @param slot the slot to free.
+	 */
+	public void release(int slot) {
+		if (!live[slot])
+			throw new IllegalStateException("slot " + slot + " is not allocated");
+		live[slot] = false;
+		freeSlots[freeCount ++] = slot;
+	}
+
+	/**
+	 * @return the number of allocated slots.
+	 */
+	public int size() {
+		return slotCount - freeCount;
+	}
+
+	/**
+	 * @param slot an allocated slot.
+	 * @return the hash of everything held in the slot. Slots in the same state have the same hash, in this store or any other.
+	 */
+	public long getHash(int slot) {
+		return hash[slot];
+	}
+
+	/**
+	 * Recomputes a slot's hash from scratch, after its arrays have been written to without updating it.
+	 */
+	void rehash(int slot) {
+		long h = Zobrist.key(HEALTH, health[slot]) + Zobrist.key(MAX_HEALTH, maxHealth[slot])
+				+ Zobrist.key(ENERGY, energy[slot]) + Zobrist.key(MAX_ENERGY, maxEnergy[slot]);
+		for (int k = 0; k < ATTRIBUTES; k ++) {
+			int row = slot * ATTRIBUTES + k;
+			h += Zobrist.key(VALUE + k, currentVal[row]) + settingsKey(row) + modifiers.hash(row * 2) + modifiers.hash(row * 2 + 1);
+		}
+		hash[slot] = h;
+	}
+
+	/**
+	 * Private utility method, gets the key of an attribute's settings and default value.
+	 */
+	private long settingsKey(int row) {
+		int k = row % ATTRIBUTES;
+		return Zobrist.key(SETTINGS + k, minimumVal[row], modifyRate[row]) + Zobrist.key(DEFAULT + k, defaultVal[row], turnReset[row] ? 1 : 0);
+	}
+
+	/**
+	 * Private utility method, writes one element of an array of a slot's numbers, updating the slot's hash.
+	 */
+	private void set(int[] array, int feature, int slot, int index, int value) {
+		hash[slot] += Zobrist.key(feature, value) - Zobrist.key(feature, array[index]);
+		array[index] = value;
+	}
+
+	/**
+	 * Sets up an attribute row with no modifiers and a value of 0. Does not update the slot's hash; rehash the slot afterwards.
+	 * @param row the attribute's row.
+	 * @param reset whether the value is reset to defaultVal each turn.
+	 * @param minimum the smallest possible value.
+	 * @param rate added to the value each turn when reset is false.
+	 * @param defaultValue the value the attribute is reset to.
+	 */
+	void setUp(int row, boolean reset, int minimum, int rate, int defaultValue) {
+		turnReset[row] = reset;
+		minimumVal[row] = minimum;
+		modifyRate[row] = rate;
+		defaultVal[row] = defaultValue;
+		currentVal[row] = 0;
+		modifiers.clear(row * 2);
+		modifiers.clear(row * 2 + 1);
+	}
+
+	/**
+	 * Copies everything held in a slot of a given store(which may be this store) into a slot of this store.
+	 * @param from the store to copy from.
+	 * @param fromSlot the slot to copy.
+	 * @param toSlot the slot of this store to overwrite.
+	 */
+	public void copySlot(EntityStore from, int fromSlot, int toSlot) {
+		health[toSlot] = from.health[fromSlot];
+		maxHealth[toSlot] = from.maxHealth[fromSlot];
+		energy[toSlot] = from.energy[fromSlot];
+		maxEnergy[toSlot] = from.maxEnergy[fromSlot];
+		for (int k = 0; k < ATTRIBUTES; k ++)
+			copyAttribute(from, fromSlot * ATTRIBUTES + k, toSlot * ATTRIBUTES + k);
+		hash[toSlot] = from.hash[fromSlot];
+	}
+
+	/**
+	 * Copies an attribute row of a given store(which may be this store) into an attribute row of this store. Does not update the slot's hash;
+	 * rehash the slot afterwards.
+	 */
+	void copyAttribute(EntityStore from, int fromRow, int toRow) {
+		turnReset[toRow] = from.turnReset[fromRow];
+		minimumVal[toRow] = from.minimumVal[fromRow];
+		modifyRate[toRow] = from.modifyRate[fromRow];
+		defaultVal[toRow] = from.defaultVal[fromRow];
+		currentVal[toRow] = from.currentVal[fromRow];
+		modifiers.copyRow(from.modifiers, fromRow * 2, toRow * 2);
+		modifiers.copyRow(from.modifiers, fromRow * 2 + 1, toRow * 2 + 1);
+	}
+
+	/**
+	 * Writes everything held in a slot.
+	 * @param slot the slot to write.
+	 * @param out where to write it.
+	 */
+	void writeSlot(int slot, DataOutput out) throws IOException {
+		out.writeInt(health[slot]);
+		out.writeInt(maxHealth[slot]);
+		out.writeInt(energy[slot]);
+		out.writeInt(maxEnergy[slot]);
+		for (int row = slot * ATTRIBUTES; row < (slot + 1) * ATTRIBUTES; row ++) {
+			out.writeBoolean(turnReset[row]);
+			out.writeInt(minimumVal[row]);
+			out.writeInt(modifyRate[row]);
+			out.writeInt(defaultVal[row]);
+			out.writeInt(currentVal[row]);
+			modifiers.write(row * 2, out);
+			modifiers.write(row * 2 + 1, out);
+		}
+	}
+
+	/**
+	 * Overwrites everything held in a slot with a slot written by writeSlot.
+	 * @param slot the slot to overwrite.
+	 * @param in where to read the slot from.
+	 */
+	void readSlot(int slot, DataInput in) throws IOException {
+		health[slot] = in.readInt();
+		maxHealth[slot] = in.readInt();
+		energy[slot] = in.readInt();
+		maxEnergy[slot] = in.readInt();
+		for (int row = slot * ATTRIBUTES; row < (slot + 1) * ATTRIBUTES; row ++) {
+			turnReset[row] = in.readBoolean();
+			minimumVal[row] = in.readInt();
+			modifyRate[row] = in.readInt();
+			defaultVal[row] = in.readInt();
+			currentVal[row] = in.readInt();
+			modifiers.read(row * 2, in);
+			modifiers.read(row * 2 + 1, in);
+		}
+		rehash(slot);
+	}
+
+	/**
+	 * Starts a turn for every allocated slot, exactly as Entity.startTurn() does for one.
+	 */
+	public void startTurnAll() {
+		for (int slot = 0; slot < slotCount; slot ++)
+			if (live[slot])
+				startTurn(slot);
+	}
+
+	/**
+	 * Ends a turn for every allocated slot, exactly as Entity.endTurn() does for one.
+	 */
+	public void endTurnAll() {
+		for (int slot = 0; slot < slotCount; slot ++)
+			if (live[slot])
+				endTurn(slot);
+	}
+
+	/**
+	 * Updates a slot's attributes, then applies its regeneration and poison.
+	 */
+	void startTurn(int slot) {
+		int row = slot * ATTRIBUTES;
+		for (int k : TICKED)
+			startTurnAttribute(row + k);
+		heal(slot, currentVal[row + REGENERATION]);
+		damage(slot, currentVal[row + POISON]);
+	}
+
+	/**
+	 * Updates a slot's attributes, then applies damage from its constricted attribute.
+	 */
+	void endTurn(int slot) {
+		int row = slot * ATTRIBUTES;
+		for (int k : TICKED)
+			endTurnAttribute(row + k);
+		damage(slot, currentVal[row + CONSTRICTED]);
+	}
+
+	/**
+	 * Resets a slot's attributes for a new combat.
+	 */
+	void startCombat(int slot) {
+		int row = slot * ATTRIBUTES;
+		for (int k : TICKED)
+			startCombatAttribute(row + k);
+	}
+
+	/**
+	 * Deals damage to a slot, 25% more if it has any vulnerability, taken from armour first and then health.
+	 */
+	void damage(int slot, int amount) {
+		takeDamage(slot, vulnerable(slot, amount));
+	}
+
+	/**
+	 * @return the damage a slot would take from a given hit: 25% more if it has any vulnerability.
+	 */
+	int vulnerable(int slot, int amount) {
+		if (currentVal[slot * ATTRIBUTES + VULNERABLE] != 0) {
+			amount *= 1.25;
+		}
+		return amount;
+	}
+
+	/**
+	 * Takes damage from a slot's armour first and then its health, without any increase for vulnerability. Several hits can be taken as one: the
+	 * slot ends up the same as if they were taken one at a time.
+	 */
+	void takeDamage(int slot, int amount) {
+		int row = slot * ATTRIBUTES;
+		if (amount > 0) {
+			setHealth(slot, health[slot] - Math.max(amount - currentVal[row + ARMOUR], 0));
+			modifyAttribute(row + ARMOUR, -amount);
+		}
+	}
+
+	/**
+	 * Heals a slot, up to its maximum health.
+	 */
+	void heal(int slot, int amount) {
+		setHealth(slot, health[slot] + amount);
+	}
+
+	/**
+	 * Sets a slot's health, kept between 0 and its maximum health.
+	 */
+	void setHealth(int slot, int value) {
+		set(health, HEALTH, slot, slot, Math.max(0, Math.min(maxHealth[slot], value)));
+	}
+
+	/**
+	 * Sets a slot's health, maximum health, energy and maximum energy as given, without keeping them in range.
+	 */
+	void setStats(int slot, int maxHealth, int health, int maxEnergy, int energy) {
+		set(this.maxHealth, MAX_HEALTH, slot, slot, maxHealth);
+		set(this.health, HEALTH, slot, slot, health);
+		set(this.maxEnergy, MAX_ENERGY, slot, slot, maxEnergy);
+		set(this.energy, ENERGY, slot, slot, energy);
+	}
+
+	/**
+	 * Sets a slot's maximum health.
+	 */
+	void setMaxHealth(int slot, int value) {
+		set(maxHealth, MAX_HEALTH, slot, slot, value);
+	}
+
+	/**
+	 * Sets a slot's energy.
+	 */
+	void setEnergy(int slot, int value) {
+		set(energy, ENERGY, slot, slot, value);
+	}
+
+	/**
+	 * Sets a slot's maximum energy.
+	 */
+	void setMaxEnergy(int slot, int value) {
+		set(maxEnergy, MAX_ENERGY, slot, slot, value);
+	}
+
+	/**
+	 * Adds to an attribute's value, which cannot go below the attribute's minimum.
+	 */
+	void modifyAttribute(int row, int amount) {
+		setValue(row, Math.max(minimumVal[row], currentVal[row] + amount));
+	}
+
+	/**
+	 * Sets an attribute's value as given.
+	 */
+	void setValue(int row, int value) {
+		set(currentVal, VALUE + row % ATTRIBUTES, row / ATTRIBUTES, row, value);
+	}
+
+	/**
+	 * Stops an attribute's value from being reset each turn, and sets the amount added to it each turn instead.
+	 */
+	void setModifyRate(int row, int rate) {
+		int slot = row / ATTRIBUTES;
+		hash[slot] -= settingsKey(row);
+		turnReset[row] = false;
+		modifyRate[row] = rate;
+		hash[slot] += settingsKey(row);
+	}
+
+	/**
+	 * Adds a modifier to one of an attribute's modifier rows.
+	 * @param modifierRow 2 * the attribute's row for a start turn modifier, or 1 more for an end turn modifier.
+	 */
+	void addModifier(int modifierRow, int amount, int duration) {
+		hash[modifierRow / (ATTRIBUTES * 2)] += modifiers.add(modifierRow, amount, duration);
+	}
+
+	/**
+	 * Private utility method, applies one of an attribute's modifier rows to its value, updating the slot's hash.
+	 */
+	private void applyModifiers(int row, int modifierRow) {
+		int slot = row / ATTRIBUTES, feature = VALUE + row % ATTRIBUTES;
+		long h = hash[slot] - Zobrist.key(feature, currentVal[row]);
+		h += modifiers.apply(modifierRow, currentVal, row, minimumVal[row]);
+		hash[slot] = h + Zobrist.key(feature, currentVal[row]);
+	}
+
+	/**
+	 * Resets an attribute's value or adds its modify rate, then applies its start turn modifiers.
+	 */
+	void startTurnAttribute(int row) {
+		if (turnReset[row])
+			setValue(row, defaultVal[row]);
+		else
+			modifyAttribute(row, modifyRate[row]);
+		applyModifiers(row, row * 2);
+	}
+
+	/**
+	 * Applies an attribute's end turn modifiers.
+	 */
+	void endTurnAttribute(int row) {
+		applyModifiers(row, row * 2 + 1);
+	}
+
+	/**
+	 * Sets an attribute's value to its default and clears its modifiers.
+	 */
+	void startCombatAttribute(int row) {
+		setValue(row, defaultVal[row]);
+		int slot = row / ATTRIBUTES;
+		hash[slot] += modifiers.clear(row * 2);
+		hash[slot] += modifiers.clear(row * 2 + 1);
+	}
+
+	/**
+	 * Private utility method, enlarges every array to hold a given number of slots.
+	 */
+	private void grow(int newCapacity) {
+		live = Arrays.copyOf(live, newCapacity);
+		freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+		health = Arrays.copyOf(health, newCapacity);
+		maxHealth = Arrays.copyOf(maxHealth, newCapacity);
+		energy = Arrays.copyOf(energy, newCapacity);
+		maxEnergy = Arrays.copyOf(maxEnergy, newCapacity);
+		hash = Arrays.copyOf(hash, newCapacity);
+		int rows = newCapacity * ATTRIBUTES;
+		turnReset = Arrays.copyOf(turnReset, rows);
+		minimumVal = Arrays.copyOf(minimumVal, rows);
+		modifyRate = Arrays.copyOf(modifyRate, rows);
+		defaultVal = Arrays.copyOf(defaultVal, rows);
+		currentVal = Arrays.copyOf(currentVal, rows);
+		modifiers.addRows(rows * 2);
+		capacity = newCapacity;
+	}
+
+}
@@ -0,0 +1,37 @@
+/**
+ * Receives the output of a GameEngine: messages describing what happens, and the stats of the player and monsters whenever they should be shown.
+ * A GameEngine without an EventSink produces no output at all.
+ */
+public interface EventSink {
+
+	/**
+	 * @param text a message describing something that happened.
+	 */
+	void message(String text);
+
+	/**
+	 * Shows the current stats of the player and monster. By default, sends them as a message formatted by Game.statsToString.
+	 */
+	default void stats(Entity player, Entity monster) {
+		message(Game.statsToString(player, monster));
+	}
+
+	/**
+	 * Shows the current stats of the player and every monster of an encounter. By default, an encounter of one is shown as stats(Entity, Entity)
+	 * shows it, and a larger one is sent as a message formatted by Game.statsToString.
+	 */
+	default void stats(Entity player, Encounter encounter) {
+		if (encounter.size() == 1)
+			stats(player, encounter.get(0));
+		else
+			message(Game.statsToString(player, encounter));
+	}
+
+	/**
+	 * Called once a combat is over and its reward, if any, has been given. Does nothing by default; the outcome has already been sent as messages.
+	 * @param engine the engine that ran the combat.
+	 */
+	default void combatEnded(GameEngine engine) {
+	}
+
+}
@@ -1,6 +1,12 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.Scanner;
-import java.util.ArrayList;
-import java.util.Arrays;
 
 
 /**
@@ -8,41 +14,103 @@ import java.util.Arrays;
  */
 public class Game {
 
+	//The attributes shown by statsToString, in order, and their names. Frail is not shown.
+	private static final int[] SHOWN = {EntityStore.STRENGTH, EntityStore.DEXTERITY, EntityStore.WEAK, EntityStore.VULNERABLE, EntityStore.REGENERATION,
+			EntityStore.POISON, EntityStore.CONSTRICTED, EntityStore.ARMOUR};
+	private static final String[] SHOWN_NAMES = {"Strength", "Dexterity", "Weak", "Vulnerable", "Regeneration", "Poison", "Constricted", "Armour"};
+
 	/**
 	 * Main game loop.
+	 * @param args optionally, the seed to generate the game's random numbers from. Playing again with the same seed and the same decisions replays the same game.
+	 * Add -evaluate to choose each reward from three cards ranked by simulating them in the player's deck, and -log followed by a file name to record
+	 * every combat to that file(see CombatReplayer). Add -script followed by a file name to take the player's decisions from that file instead of the
+	 * console(see ScriptedController), and -console as well if the file is a recording of what was typed into a console session. Add -quiet to show
+	 * only a summary of each combat(see ConsoleRenderer), and -group followed by a number to fight groups of up to that many monsters at once(see
+	 * Encounter).
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		CardsUtil.load();
-		Monster slime = new Monster("Slime", 19, CardsUtil.get("Monster Attack"), CardsUtil.get("Monster Block")),
-				jawWorm = new Monster("Jaw Worm", 44, CardsUtil.get("Monster Attack"), CardsUtil.get("Monster Block"), CardsUtil.get("Monster BlAttack")),
-			    louse = new Monster("Louse", 16, CardsUtil.get("Monster WkAttack"), CardsUtil.get("Monster BlAttack"), CardsUtil.get("Monster StBlock"), CardsUtil.get("Monster Block")),
-			    gremlinNob = new Monster("Gremlin Nob", 82, CardsUtil.get("Monster Attack"), CardsUtil.get("Monster StAttack"), CardsUtil.get("Monster HvAttack"));
-
-		Monster[] monsters = new Monster[] {slime, jawWorm, louse, gremlinNob};
+		Metrics.start();
+		MonsterPrototype[] monsters = createPrototypes();
+		long seed = System.nanoTime();
+		boolean evaluate = false, quiet = false, console = false;
+		int group = 1;
+		String logFile = null, scriptFile = null;
+		for (int i = 0; i < args.length; i ++) {
+			if (args[i].equals("-evaluate"))
+				evaluate = true;
+			else if (args[i].equals("-quiet"))
+				quiet = true;
+			else if (args[i].equals("-console"))
+				console = true;
+			else if (args[i].equals("-log") && i + 1 < args.length)
+				logFile = args[++ i];
+			else if (args[i].equals("-script") && i + 1 < args.length)
+				scriptFile = args[++ i];
+			else if (args[i].equals("-group") && i + 1 < args.length)
+				group = Integer.parseInt(args[++ i]);
+			else
+				seed = Long.parseLong(args[i]);
+		}
+		GameRandom random = new GameRandom(seed);
 
 		Scanner in = new Scanner(System.in);
-		Player player = new Player(intro(in), 50, CardsUtil.get("Strike"), CardsUtil.get("Strike"), CardsUtil.get("Strike"), CardsUtil.get("Defend"), CardsUtil.randomP(), CardsUtil.randomP(), CardsUtil.randomP());
-
-		while (player.alive()) {
-			Monster monster = getNextMonster(monsters);
-		//	monster.setStrategy("0.8,Monster Special,2/0.2,Monster Special,2");
-		//	monster.setStrategy("1,Monster Special,3/0.9,Monster SpecialTwo,2");
-
-			System.out.println("An opponent has arrived: " + monster.getName());
-			player.startCombat();
-
-			while (monster.alive() && player.alive()) {
-				playerTurn(player, monster);
-				player.endTurn();
-				endTurn(in, player, monster);
-			}
-			player.endCombat();
-			endCombat(in, player, monster);
+		PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out)), 1 << 16));
+		BufferedReader script = scriptFile == null ? null : new BufferedReader(new FileReader(scriptFile));
+		ScriptedController scripted = script == null ? null : new ScriptedController(script, console);
+		Player player = new Player(script == null ? intro(in) : console ? scripted.readIntro() : "Player", 50, CardsUtil.get("Strike"), CardsUtil.get("Strike"), CardsUtil.get("Strike"), CardsUtil.get("Defend"),
+				CardsUtil.randomP(random), CardsUtil.randomP(random), CardsUtil.randomP(random));
+		out.println("Seed: " + seed);
+
+		ConsoleRenderer renderer = new ConsoleRenderer(out, quiet);
+		Controller controller = script == null ? new ConsoleController(in, out) : scripted;
+		GameEngine engine = new GameEngine(player, new MonsterFactory(monsters), controller, renderer, random);
+		engine.setMaxEncounterSize(group);
+		if (evaluate)
+			engine.setRewardEvaluator(new RewardEvaluator(monsters), 3);
+		//The log is closed even if the game fails, so that its index is written and the failed combat can be replayed.
+		try (CombatLog log = logFile == null ? null : new CombatLog(logFile, 5)) {
+			engine.setLog(log);
+			engine.run();
+			renderer.finish();
+		} finally {
+			//Shows the seed and everything before a failure, so that it can be replayed.
+			out.flush();
 		}
+		if (script != null)
+			script.close();
 
 		in.close();
 	}
 
+	/**
+	 * Creates the prototypes of the monsters the player can be challenged by. CardsUtil must already be loaded. The prototypes never change, so
+	 * they may be shared by any number of games(see MonsterFactory).
+	 * @return a new array of prototypes.
+	 */
+	public static MonsterPrototype[] createPrototypes() {
+		MonsterPrototype slime = new MonsterPrototype("Slime", 19, CardsUtil.get("Monster Attack"), CardsUtil.get("Monster Block")),
+				jawWorm = new MonsterPrototype("Jaw Worm", 44, CardsUtil.get("Monster Attack"), CardsUtil.get("Monster Block"), CardsUtil.get("Monster BlAttack")),
+			    louse = new MonsterPrototype("Louse", 16, CardsUtil.get("Monster WkAttack"), CardsUtil.get("Monster BlAttack"), CardsUtil.get("Monster StBlock"), CardsUtil.get("Monster Block")),
+			    gremlinNob = new MonsterPrototype("Gremlin Nob", 82, CardsUtil.get("Monster Attack"), CardsUtil.get("Monster StAttack"), CardsUtil.get("Monster HvAttack"));
+		//	slime = new MonsterPrototype("Slime", 19, new MonsterStrategy("0.8,Monster Special,2/0.2,Monster Special,2"), ...);
+		//	jawWorm = new MonsterPrototype("Jaw Worm", 44, new MonsterStrategy("1,Monster Special,3/0.9,Monster SpecialTwo,2"), ...);
+
+		return new MonsterPrototype[] {slime, jawWorm, louse, gremlinNob};
+	}
+
+	/**
+	 * Creates the monsters the player can be challenged by, one new Monster per prototype. CardsUtil must already be loaded.
+	 * @return a new array of new Monsters.
+	 */
+	public static Monster[] createMonsters() {
+		MonsterPrototype[] prototypes = createPrototypes();
+		Monster[] monsters = new Monster[prototypes.length];
+		for (int i = 0; i < prototypes.length; i ++)
+			monsters[i] = prototypes[i].newMonster();
+		return monsters;
+	}
+
 	/**
 	 * Prints the game intro and returns the user's name.
 	 * @param in this Scanner will be used to get the user's name.
@@ -57,109 +125,108 @@ public class Game {
 	}
 
 	/**
-	 * Runs the player's turn, and loops until the player ends their turn.
-	 * @param player
-	 * @param monster
+	 * @return a random player card, cannot be Strike.
 	 */
-	public static void playerTurn(Player player, Monster monster) {
-		System.out.println(player.getName() + "'s turn!");
-		monster.setMove();
-		System.out.println(monster.intentions());
-
-		player.startTurn();
-		printStats(player, monster);
-
-		while (player.nextCard(monster) && monster.alive()) {
-			System.out.println(monster.intentions());
-			printStats(player, monster);
-		}
+	public static Card newCard() {
+		return newCard(GameRandom.current());
 	}
 
 	/**
-	 * Prints out end turn messages and prompts the user to hit enter.
-	 * @param in this Scanner will be used to take the player's input.
-	 * @param player
-	 * @param monster
+	 * @param random the generator to pick with.
+	 * @return a random player card, cannot be Strike.
 	 */
-	public static void endTurn(Scanner in, Player player, Monster monster) {
-		if (monster.alive() && player.alive()) {
-			pressEnter(in, player.getName() + "'s turn is over!");
-
-			System.out.println(monster.getName() + "'s turn!");
-			printStats(player, monster);
-
-			monster.getMove().use(monster, player);
-			System.out.println(monster.actionReport());
-			printStats(player, monster);
-			pressEnter(in, "");
-		}
+	public static Card newCard(GameRandom random) {
+		Card c;
+		while((c = CardsUtil.randomP(random)).getName().equals("Strike"));
+		return c;
 	}
 
 	/**
-	 * Prints if the monster or player won. Adds a random card to the player's deck if they won.
-	 * @param in this Scanner will be used to prompt the user to hit enter.
-	 * @param player
-	 * @param monster
+	 * Returns a random monster from a factory, in its prototype's clean state, picked with the calling thread's GameRandom.
+	 * @param monsters the factory to take the monster from.
+	 * @return a random monster, which should be given back to the factory once its combat is over.
 	 */
-	public static void endCombat(Scanner in, Player player, Monster monster) {
-		if (!player.alive())
-			System.out.println("DEFEAT!");
-		else {
-			pressEnter(in, monster.getName() + " has been slain!");
-			Card reward = newCard();
-			pressEnter(in, "Your reward: " + reward.getName() + "\n" + reward.getDescription());
-			player.addCard(reward);
-		}
+	public static Monster getNextMonster(MonsterFactory monsters) {
+		return getNextMonster(monsters, GameRandom.current());
 	}
 
 	/**
-	 * @return a random player card, cannot be Strike.
+	 * Returns a random monster from a factory, in its prototype's clean state: full health, and nothing left over from any earlier combat.
+	 * @param monsters the factory to take the monster from.
+	 * @param random the generator to pick with.
+	 * @return a random monster, which should be given back to the factory once its combat is over.
 	 */
-	public static Card newCard() {
-		Card c;
-		while((c = CardsUtil.randomP()).getName().equals("Strike"));
-		return c;
+	public static Monster getNextMonster(MonsterFactory monsters, GameRandom random) {
+		return monsters.acquire(random.nextInt(monsters.size()));
 	}
 
 	/**
-	 * Returns a random monster from a given array, with full health.
-	 * @param monsters the monsters to choose from.
-	 * @return a random monster, with restored health.
+	 * Returns a random group of monsters from a factory, each in its prototype's clean state. A kind picked more than once is fought as several
+	 * monsters of that kind.
+	 * @param monsters the factory to take the monsters from.
+	 * @param maxSize the most monsters in the group; the size is picked at random from 1 to maxSize. With a maxSize of 1, the one monster is picked
+	 * exactly as getNextMonster picks it.
+	 * @param random the generator to pick with.
+	 * @return a random encounter, whose monsters should be given back to the factory once its combat is over.
 	 */
-	public static Monster getNextMonster(Monster[] monsters) {
-		Monster m = monsters[(int) (Math.random() * monsters.length)];
-		m.heal(m.getMaxHealth());
-		return m;
+	public static Encounter getNextEncounter(MonsterFactory monsters, int maxSize, GameRandom random) {
+		if (maxSize <= 1)
+			return new Encounter(getNextMonster(monsters, random));
+		Monster[] group = new Monster[1 + random.nextInt(maxSize)];
+		for (int i = 0; i < group.length; i ++)
+			group[i] = getNextMonster(monsters, random);
+		return new Encounter(group);
 	}
 
 	/**
 	 * Prints the health, armour and various non-zero attributes of the given player and monster, as well as the energy of the player.
 	 */
 	public static void printStats(Entity player, Entity monster) {
-		ArrayList<String> attributeList = new ArrayList<String>(Arrays.asList("Strength", "Dexterity", "Weak", "Vulnerable", "Regeneration", "Poison", "Constricted", "Armour"));
-
-		String playerStatus = ("\n" + player.getName() + ":   health: " + player.getHealth() + "/" + player.getMaxHealth() +
-				"      Energy: " + player.getEnergy() + "/"  + player.getMaxEnergy());
-		int i = 0;
-		for (Attribute a : new Attribute[] {player.getStrength(), player.getDexterity(), player.getWeak(), player.getVulnerable(), player.getRegeneration(),
-		player.getPoison(), player.getConstricted(), player.getArmour()}){
-			if (a.getCurrentVal()!= 0){
-				playerStatus += String.format("      %s: %d", attributeList.get(i), a.getCurrentVal());
-			}
-			i++;
-		}
+		System.out.println(statsToString(player, monster));
+	}
 
-		String monsterStatus = (monster.getName() + ":    health: " + monster.getHealth() + "/" + monster.getMaxHealth());
-		int j = 0;
-		for (Attribute a : new Attribute[] {monster.getStrength(), monster.getDexterity(), monster.getWeak(), monster.getVulnerable(), monster.getRegeneration(),
-		monster.getPoison(), monster.getConstricted(), monster.getArmour()}){
-			if (a.getCurrentVal()!= 0){
-				monsterStatus += String.format("      %s: %d", attributeList.get(j), a.getCurrentVal());
-			}
-			j++;
+	/**
+	 * @return the health, armour and various non-zero attributes of the given player and monster, as well as the energy of the player, one per line.
+	 */
+	public static String statsToString(Entity player, Entity monster) {
+		StringBuilder s = new StringBuilder(128).append('\n');
+		appendStats(s, player, true);
+		appendStats(s.append('\n'), monster, false);
+		return s.toString();
+	}
+
+	/**
+	 * @return the health, armour and various non-zero attributes of the given player and every monster of an encounter, as well as the energy of the
+	 * player, one per line. Defeated monsters are left out.
+	 */
+	public static String statsToString(Entity player, Encounter encounter) {
+		StringBuilder s = new StringBuilder(128 + 64 * encounter.size()).append('\n');
+		appendStats(s, player, true);
+		for (int i = 0; i < encounter.size(); i ++)
+			if (encounter.get(i).alive() || encounter.size() == 1)
+				appendStats(s.append('\n'), encounter.get(i), false);
+		return s.toString();
+	}
+
+	/**
+	 * Appends one line of statsToString: the health, non-zero attributes and, for the player, the energy of an entity, without a line terminator.
+	 * @param s the builder to append to.
+	 * @param e the entity to describe.
+	 * @param player whether the entity is the player, whose energy is shown.
+	 * @return the builder.
+	 */
+	static StringBuilder appendStats(StringBuilder s, Entity e, boolean player) {
+		s.append(e.getName()).append(player ? ":   health: " : ":    health: ").append(e.getHealth()).append('/').append(e.getMaxHealth());
+		if (player)
+			s.append("      Energy: ").append(e.getEnergy()).append('/').append(e.getMaxEnergy());
+		int[] values = e.getStore().currentVal;
+		int row = e.getSlot() * EntityStore.ATTRIBUTES;
+		for (int i = 0; i < SHOWN.length; i ++) {
+			int value = values[row + SHOWN[i]];
+			if (value != 0)
+				s.append("      ").append(SHOWN_NAMES[i]).append(": ").append(value);
 		}
-		System.out.println(playerStatus);
-		System.out.println(monsterStatus);
+		return s;
 	}
 
 
@@ -0,0 +1,444 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs combats between a Player and a series of Monsters without depending on the console. The player's decisions come from a Controller, and
+ * everything that happens is reported to an optional EventSink; with no EventSink and a Controller that never waits, whole runs play out at full speed.
+ * A combat can be run in one call(runCombat), or one step at a time(startCombat, playerTurn or nextCard, endTurn, endCombat).
+ *
+ * Each combat is against an Encounter: one monster, or a group of them(see setMaxEncounterSize). A combat against a single Monster is an Encounter
+ * of one, and plays exactly as it always has.
+ */
+public class GameEngine {
+
+	private final Player player;
+	private final MonsterFactory monsters;
+	private final Controller controller;
+	private final EventSink sink;
+	private final GameRandom random;
+
+	private Encounter encounter;
+	private int turn, turnLimit, maxEncounterSize = 1;
+	private RewardEvaluator evaluator;
+	private int rewardChoices;
+	private long rewardSeed;
+	private CombatLog log;
+	//Counts of calls, deciding which are timed, and counts gathered for Metrics, added to the shared counters once per turn.
+	private int turnTicks, endTurnTicks, useTicks, monsterTicks, cardsPlayed, energySpent, damageDealt;
+
+	/**
+	 * Creates an engine for a given player and monster roster, using the calling thread's GameRandom.
+	 * @param player the Player to run the game for.
+	 * @param monsters the factory that opponents are taken from by run(), and given back to once their combat is over; null if run() is not used.
+	 * @param controller makes the player's decisions.
+	 * @param sink receives the game's output, or null for no output.
+	 */
+	public GameEngine(Player player, MonsterFactory monsters, Controller controller, EventSink sink) {
+		this(player, monsters, controller, sink, GameRandom.current());
+	}
+
+	/**
+	 * Creates an engine for a given player and monster roster, with every random choice made by a given generator. The generator is given to the
+	 * player's Deck and to every Monster the engine uses, so the same seed and the same decisions always reproduce the same game.
+	 * @param player the Player to run the game for.
+	 * @param monsters the factory that opponents are taken from by run(), and given back to once their combat is over; null if run() is not used.
+	 * @param controller makes the player's decisions.
+	 * @param sink receives the game's output, or null for no output.
+	 * @param random makes every random choice in the game.
+	 */
+	public GameEngine(Player player, MonsterFactory monsters, Controller controller, EventSink sink, GameRandom random) {
+		this.player = player;
+		this.monsters = monsters;
+		this.controller = controller;
+		this.sink = sink;
+		this.random = random;
+		player.getDeck().setRandom(random);
+	}
+
+	/**
+	 * Sets the most turns a combat may last. A combat that reaches the limit ends with neither side winning, which keeps automated runs from
+	 * going on forever when neither side can defeat the other.
+	 * @param turnLimit the most turns a combat may last, or 0 for no limit(the default).
+	 */
+	public void setTurnLimit(int turnLimit) {
+		this.turnLimit = Math.max(0, turnLimit);
+	}
+
+	/**
+	 * Offers the player a choice of ranked rewards after each won combat, rather than a single random card. The candidates are random cards, ranked
+	 * by a RewardEvaluator, and the Controller picks one of them. Every ranking uses the same seed, drawn now, so that the evaluator's cached results
+	 * for decks it has already simulated are compared fairly with new ones.
+	 * @param evaluator ranks the candidates, or null to give a single random card(the default).
+	 * @param choices how many candidates to offer.
+	 */
+	public void setRewardEvaluator(RewardEvaluator evaluator, int choices) {
+		this.evaluator = evaluator;
+		this.rewardChoices = Math.max(1, choices);
+		if (evaluator != null)
+			rewardSeed = random.nextLong();
+	}
+
+	/**
+	 * @param log records every combat the engine runs from now on, or null to record nothing(the default).
+	 */
+	public void setLog(CombatLog log) {
+		this.log = log;
+	}
+
+	/**
+	 * @param maxEncounterSize the most monsters run() puts in one encounter(see Game.getNextEncounter). Defaults to 1: a single monster per combat.
+	 */
+	public void setMaxEncounterSize(int maxEncounterSize) {
+		this.maxEncounterSize = Math.max(1, maxEncounterSize);
+	}
+
+	/**
+	 * Runs combats against random encounters from the roster until the player is defeated, or a combat reaches the turn limit. Each encounter's
+	 * monsters are given back to the factory once its combat is over.
+	 * @return the number of combats the player won.
+	 */
+	public int run() {
+		int won = 0;
+		while (player.alive()) {
+			Encounter opponents = Game.getNextEncounter(monsters, maxEncounterSize, random);
+			boolean victory = runCombat(opponents);
+			monsters.release(opponents);
+			if (!victory)
+				break;
+			won ++;
+		}
+		return won;
+	}
+
+	/**
+	 * Runs a whole combat against a given monster, including the reward if the player wins.
+	 * @param opponent the Monster to fight.
+	 * @return whether the player won.
+	 */
+	public boolean runCombat(Monster opponent) {
+		return runCombat(new Encounter(opponent));
+	}
+
+	/**
+	 * Runs a whole combat against a given group of monsters, including the reward if the player wins.
+	 * @param opponents the Encounter to fight.
+	 * @return whether the player won.
+	 */
+	public boolean runCombat(Encounter opponents) {
+		startCombat(opponents);
+		while (!isCombatOver()) {
+			playerTurn();
+			endTurn();
+		}
+		endCombat();
+		return playerWon();
+	}
+
+	/**
+	 * Announces the opponent and prepares the player for a new combat.
+	 * @param opponent the Monster to fight.
+	 */
+	public void startCombat(Monster opponent) {
+		startCombat(new Encounter(opponent));
+	}
+
+	/**
+	 * Announces the opponents and prepares the player for a new combat.
+	 * @param opponents the Encounter to fight.
+	 */
+	public void startCombat(Encounter opponents) {
+		encounter = opponents;
+		encounter.setRandom(random);
+		turn = 0;
+		if (sink != null)
+			sink.message((encounter.size() == 1 ? "An opponent has arrived: " : "Opponents have arrived: ") + encounter.getName());
+		player.startCombat();
+		if (log != null)
+			log.combatStarted(this);
+		if (Metrics.ENABLED)
+			Metrics.COMBATS.increment();
+	}
+
+	/**
+	 * Continues a combat from a captured state, without preparing the player for a new combat as startCombat does.
+	 * @param opponent the Monster the state was captured from, or a copy of it.
+	 * @param state the state to continue from.
+	 */
+	public void resumeCombat(Monster opponent, CombatState state) {
+		resumeCombat(new Encounter(opponent), state);
+	}
+
+	/**
+	 * Continues a combat against a group of monsters from a captured state, without preparing the player for a new combat as startCombat does.
+	 * @param opponents the Encounter the state was captured from, or a copy of it.
+	 * @param state the state to continue from.
+	 */
+	public void resumeCombat(Encounter opponents, CombatState state) {
+		encounter = opponents;
+		encounter.setRandom(random);
+		restoreState(state);
+	}
+
+	/**
+	 * Starts the player's turn, and loops until the player ends their turn.
+	 */
+	public void playerTurn() {
+		long start = Metrics.ENABLED && Metrics.sampled(turnTicks ++) ? System.nanoTime() : 0;
+		startPlayerTurn();
+		while (nextCard() && encounter.alive()) {
+			if (sink != null) {
+				sink.message(encounter.intentions());
+				sink.stats(player, encounter);
+			}
+		}
+		if (Metrics.ENABLED && start != 0)
+			Metrics.PLAYER_TURN.record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Picks every living monster's move for the coming turn, and fills the player's hand and energy.
+	 */
+	public void startPlayerTurn() {
+		if (log != null)
+			log.turnStarting(this);
+		turn ++;
+		if (sink != null)
+			sink.message(player.getName() + "'s turn!");
+		encounter.chooseMoves();
+		if (sink != null)
+			sink.message(encounter.intentions());
+
+		player.startTurn();
+		if (log != null)
+			log.turnStarted(this);
+		if (sink != null)
+			sink.stats(player, encounter);
+	}
+
+	/**
+	 * Asks the controller for the next card to play, and attempts to play it. If the card hits a single monster and more than one is alive, the
+	 * controller also chooses which. If the controller ends the turn or chooses an index outside the hand, returns false, ending the player's turn.
+	 * Otherwise, whether the card use is successful or not, returns true, continuing the turn.
+	 * @return false if the player wishes to end their turn, true if they wish to continue.
+	 */
+	public boolean nextCard() {
+		int whichCard = controller.chooseCard(this);
+		Deck deck = player.getDeck();
+		if (whichCard < 0 || whichCard >= deck.getHandSize())
+			return false;
+
+		Card card = deck.getCardInHand(whichCard);
+		if (controller.confirmCard(this, card)) {
+			int target = card.isArea() || encounter.living() < 2 ? encounter.firstAliveIndex() : controller.chooseTarget(this, card);
+			if (target < 0 || target >= encounter.size() || !encounter.get(target).alive())
+				target = encounter.firstAliveIndex();
+			if (!playCard(whichCard, target) && sink != null)
+				sink.message("You don't have enough energy.");
+		} else if (sink != null) {
+			sink.message("Card cancelled");
+		}
+		return true;
+	}
+
+	/**
+	 * Attempts to use a card from the player's hand on the first living monster, discarding it if it was used.
+	 * @param whichCard the index of the card in the player's hand.
+	 * @return whether the player had enough energy to use the card.
+	 */
+	public boolean playCard(int whichCard) {
+		return playCard(whichCard, Math.max(0, encounter.firstAliveIndex()));
+	}
+
+	/**
+	 * Attempts to use a card from the player's hand, discarding it if it was used. An area card hits every living monster whatever the target.
+	 * @param whichCard the index of the card in the player's hand.
+	 * @param target the index in the encounter of the monster to use the card on.
+	 * @return whether the player had enough energy to use the card.
+	 */
+	public boolean playCard(int whichCard, int target) {
+		Deck deck = player.getDeck();
+		Card card = deck.getCardInHand(whichCard);
+		int energy = 0, health = 0;
+		long start = 0;
+		if (Metrics.ENABLED) {
+			energy = player.getEnergy();
+			health = encounter.totalHealth();
+			start = Metrics.sampled(useTicks ++) ? System.nanoTime() : 0;
+		}
+		boolean used = card.isArea() ? card.use(player, encounter.getMonsters()) : card.use(player, encounter.get(target));
+		if (Metrics.ENABLED) {
+			if (start != 0)
+				Metrics.CARD_USE.record(System.nanoTime() - start);
+			if (used)
+				cardsPlayed ++;
+			energySpent += energy - player.getEnergy();
+			damageDealt += Math.max(0, health - encounter.totalHealth());
+		}
+		if (used)
+			deck.drawFromHand(whichCard);
+		if (log != null)
+			log.cardPlayed(this, whichCard, target, card, used);
+		return used;
+	}
+
+	/**
+	 * Ends the player's turn, then, if the player and any monster are still alive, lets the living monsters make their moves together(see Encounter.act).
+	 */
+	public void endTurn() {
+		long start = Metrics.ENABLED && Metrics.sampled(endTurnTicks ++) ? System.nanoTime() : 0;
+		player.endTurn();
+		if (log != null)
+			log.turnEnded(this);
+		if (encounter.alive() && player.alive()) {
+			pause(player.getName() + "'s turn is over!");
+
+			if (sink != null) {
+				sink.message((encounter.size() == 1 ? encounter.get(0).getName() + "'s" : "The monsters'") + " turn!");
+				sink.stats(player, encounter);
+			}
+
+			if (log != null)
+				log.monstersMoving(this);
+			long act = Metrics.ENABLED && Metrics.sampled(monsterTicks ++) ? System.nanoTime() : 0;
+			encounter.act(player);
+			if (Metrics.ENABLED && act != 0)
+				Metrics.MONSTER_TURN.record(System.nanoTime() - act);
+			if (log != null)
+				log.monstersMoved(this);
+			if (sink != null) {
+				sink.message(encounter.actionReport());
+				sink.stats(player, encounter);
+			}
+			pause("");
+		}
+		if (Metrics.ENABLED) {
+			if (start != 0)
+				Metrics.END_TURN.record(System.nanoTime() - start);
+			Metrics.add(cardsPlayed, energySpent, damageDealt);
+			cardsPlayed = energySpent = damageDealt = 0;
+		}
+	}
+
+	/**
+	 * Empties the player's piles, then reports whether the monsters or player won. Adds a random card to the player's deck if they won, or the card
+	 * the Controller picks from the ranked rewards if a RewardEvaluator is set.
+	 */
+	public void endCombat() {
+		player.endCombat();
+		Card reward = null;
+		if (!player.alive()) {
+			if (sink != null)
+				sink.message("DEFEAT!");
+		} else if (encounter.alive()) {
+			if (sink != null)
+				sink.message("The combat against " + encounter.getName() + " has gone on for too long and ends without a winner.");
+		} else {
+			pause(encounter.getName() + (encounter.size() == 1 ? " has" : " have") + " been slain!");
+			reward = evaluator == null ? Game.newCard(random) : chooseReward();
+			pause("Your reward: " + reward.getName() + "\n" + reward.getDescription());
+			player.addCard(reward);
+		}
+		if (log != null)
+			log.combatEnded(this, reward);
+		if (sink != null)
+			sink.combatEnded(this);
+	}
+
+	/**
+	 * Private utility method, picks distinct random candidate rewards, ranks them and lets the Controller choose one.
+	 */
+	private Card chooseReward() {
+		List<Card> candidates = new ArrayList<Card>(rewardChoices);
+		for (int i = 0; i < rewardChoices * 4 && candidates.size() < rewardChoices; i ++) {
+			Card c = Game.newCard(random);
+			if (!candidates.contains(c))
+				candidates.add(c);
+		}
+		List<RewardEvaluator.Rating> ratings = evaluator.rank(player, candidates.toArray(new Card[0]), rewardSeed);
+		int choice = controller.chooseReward(this, ratings);
+		return ratings.get(choice >= 0 && choice < ratings.size() ? choice : 0).getCard();
+	}
+
+	/**
+	 * @return a snapshot of the current combat, which can be put back with restoreState.
+	 */
+	public CombatState saveState() {
+		return new CombatState(player, encounter, random, turn);
+	}
+
+	/**
+	 * Puts the current combat back into a captured state. The state must have been captured from this combat, or from a copy of its Player and Encounter.
+	 * @param state the state to put back.
+	 */
+	public void restoreState(CombatState state) {
+		state.restore(player, encounter, random);
+		turn = state.getTurn();
+	}
+
+	/**
+	 * @return a hash of the current combat: the Player, their Deck and the monsters. Combats reached by playing the same cards in a different order
+	 * have the same hash. The turn number and the state of the random numbers are not included.
+	 */
+	public long getHash() {
+		return GameRandom.mix64(player.getHash() + (encounter == null ? 0 : encounter.getHash()));
+	}
+
+	/**
+	 * @return whether the player or every monster has been defeated, or the combat has reached the turn limit.
+	 */
+	public boolean isCombatOver() {
+		return !player.alive() || !encounter.alive() || (turnLimit > 0 && turn >= turnLimit);
+	}
+
+	/**
+	 * @return whether every monster has been defeated and the player is still alive.
+	 */
+	public boolean playerWon() {
+		return player.alive() && !encounter.alive();
+	}
+
+	/**
+	 * Private utility method, reports a message and lets the controller acknowledge it.
+	 */
+	private void pause(String message) {
+		if (sink != null)
+			sink.message(message);
+		controller.acknowledge(this);
+	}
+
+	/**
+	 * @return the Player the game is being run for.
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+
+	/**
+	 * @return the first living Monster of the current encounter(or its first Monster, once all are defeated), or null before the first combat.
+	 */
+	public Monster getMonster() {
+		return encounter == null ? null : encounter.firstAlive();
+	}
+
+	/**
+	 * @return the Encounter currently being fought, or null before the first combat.
+	 */
+	public Encounter getEncounter() {
+		return encounter;
+	}
+
+	/**
+	 * @return the generator making every random choice in the game.
+	 */
+	public GameRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * @return the number of turns the player has started in the current combat.
+	 */
+	public int getTurn() {
+		return turn;
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * A small, fast source of random numbers used for every random choice in the game(card picks, shuffles and monster moves). It is not synchronized,
+ * so each thread should use its own; GameRandom.current() returns the calling thread's own generator. A GameRandom can be split into a new,
+ * statistically independent generator, which lets parallel simulations hand each worker its own generator.
+ * 
+ * The generator is SplitMix64: its whole state is a single long, advanced by a fixed odd constant and scrambled on output.
+ */
+public class GameRandom {
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private static final ThreadLocal<GameRandom> CURRENT = ThreadLocal.withInitial(
+			() -> new GameRandom(mix64(System.nanoTime() + Thread.currentThread().getId() * GOLDEN_GAMMA)));
+
+	private long state;
+
+	/**
+	 * Creates a generator with a given seed. Two generators created with the same seed produce the same numbers.
+	 * @param seed the starting state.
+	 */
+	public GameRandom(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * @return the calling thread's generator.
+	 */
+	public static GameRandom current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Replaces the calling thread's generator.
+	 * @param random the generator the calling thread should use from now on.
+	 */
+	public static void setCurrent(GameRandom random) {
+		CURRENT.set(random);
+	}
+
+	/**
+	 * @return a random long.
+	 */
+	public long nextLong() {
+		return mix64(state += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * @param bound the upper bound(exclusive); must be positive.
+	 * @return a random int from 0 up to but not including bound.
+	 */
+	public int nextInt(int bound) {
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * @return a random double from 0 up to but not including 1.
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * @return the generator's whole state. Passing it to setState later makes the generator repeat the numbers it gave from this point on.
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * @param state a state returned by getState, from this generator or any other.
+	 */
+	public void setState(long state) {
+		this.state = state;
+	}
+
+	/**
+	 * Creates a new generator seeded from this one. The new generator's numbers are independent of this one's, and using it does not affect this one.
+	 * @return the new generator.
+	 */
+	public GameRandom split() {
+		return new GameRandom(nextLong());
+	}
+
+	/**
+	 * Scrambles the bits of a long(the SplitMix64 finalizer). Also used by Zobrist to derive its keys.
+	 */
+	static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -0,0 +1,257 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Hosts any number of games at once over a line-based protocol on localhost: each connection is one GameSession, which is sent one line at a time
+ * and answers with text(see GameSession.COMMANDS). A single thread serves every connection through a non-blocking Selector, so a session costs only
+ * its game and a small buffer until its player sends something, and thousands of idle sessions cost almost nothing.
+ *
+ * A session's output is written before any more of its input is read, so a client that stops reading cannot make the server buffer without limit.
+ * A line longer than MAX_LINE closes the connection.
+ */
+public class GameServer implements Closeable {
+
+	public static final int DEFAULT_PORT = 2330;
+	/** The longest line, in bytes, a client may send. */
+	public static final int MAX_LINE = 256;
+
+	private final Selector selector;
+	private final ServerSocketChannel server;
+	private final GameRandom seeds;
+	//Shared by every session; each session takes its monsters from its own MonsterFactory.
+	private final MonsterPrototype[] prototypes;
+	private int sessions;
+	private volatile boolean running, closed;
+
+	/**
+	 * Opens the server on the loopback address. CardsUtil must already be loaded.
+	 * @param port the port to listen on, or 0 for any free port(see getPort).
+	 * @param seed the seed every session's seed is generated from.
+	 * @throws IOException if the port cannot be bound.
+	 */
+	public GameServer(int port, long seed) throws IOException {
+		seeds = new GameRandom(seed);
+		prototypes = Game.createPrototypes();
+		selector = Selector.open();
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+		server.configureBlocking(false);
+		server.register(selector, SelectionKey.OP_ACCEPT);
+	}
+
+	/**
+	 * @return the port the server is listening on.
+	 */
+	public int getPort() {
+		return server.socket().getLocalPort();
+	}
+
+	/**
+	 * @return the number of connected sessions.
+	 */
+	public int getSessions() {
+		return sessions;
+	}
+
+	/**
+	 * Serves connections until the server is closed from another thread, then closes every connection.
+	 * @throws IOException if the selector fails.
+	 */
+	public void run() throws IOException {
+		running = true;
+		try {
+			serve();
+		} finally {
+			running = false;
+			release();
+		}
+	}
+
+	/**
+	 * Stops the server. If run is serving connections, it closes them and returns soon after; otherwise they are closed at once.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		selector.wakeup();
+		if (!running)
+			release();
+	}
+
+	/**
+	 * Private utility method, the selector loop.
+	 */
+	private void serve() throws IOException {
+		while (!closed) {
+			selector.select();
+			Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				try {
+					if (!key.isValid())
+						continue;
+					if (key.isAcceptable())
+						accept();
+					else if (key.isReadable())
+						read(key);
+					else if (key.isWritable())
+						write(key);
+				} catch (IOException e) {
+					disconnect(key);
+				} catch (RuntimeException e) {
+					//A fault in one game must not stop the others.
+					System.err.println("Session failed: " + e);
+					disconnect(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Private utility method, closes every connection, the listening socket and the selector. Does nothing if they are already closed.
+	 */
+	private synchronized void release() throws IOException {
+		if (!selector.isOpen())
+			return;
+		for (SelectionKey key : selector.keys())
+			key.channel().close();
+		selector.close();
+	}
+
+	/**
+	 * Private utility method, accepts a waiting connection and greets it. A connection that fails while being accepted is dropped, without
+	 * affecting the listening socket.
+	 */
+	private void accept() {
+		SocketChannel channel = null;
+		try {
+			channel = server.accept();
+			if (channel == null)
+				return;
+			channel.configureBlocking(false);
+			Connection c = new Connection(new GameSession(seeds.nextLong(), prototypes));
+			SelectionKey key = channel.register(selector, 0, c);
+			sessions ++;
+			flush(key, c);
+		} catch (IOException e) {
+			if (channel != null) {
+				try {
+					channel.close();
+				} catch (IOException closing) {
+					//Already closed.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Private utility method, reads what a client sent, and handles every complete line.
+	 */
+	private void read(SelectionKey key) throws IOException {
+		Connection c = (Connection) key.attachment();
+		if (((SocketChannel) key.channel()).read(c.in) < 0) {
+			disconnect(key);
+			return;
+		}
+		ByteBuffer in = c.in;
+		int start = 0;
+		for (int i = 0; i < in.position(); i ++) {
+			if (in.get(i) == '\n') {
+				int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+				c.session.handle(new String(in.array(), start, end - start, StandardCharsets.UTF_8));
+				start = i + 1;
+			}
+		}
+		if (start == 0 && !in.hasRemaining()) {
+			disconnect(key);
+			return;
+		}
+		in.limit(in.position()).position(start);
+		in.compact();
+		flush(key, c);
+	}
+
+	/**
+	 * Private utility method, writes as much of a session's pending output as the client will take.
+	 */
+	private void write(SelectionKey key) throws IOException {
+		Connection c = (Connection) key.attachment();
+		((SocketChannel) key.channel()).write(c.out);
+		if (c.out.hasRemaining())
+			return;
+		c.out = null;
+		flush(key, c);
+	}
+
+	/**
+	 * Private utility method, sends a session's output, if it has any, and decides what to wait for next: for the output to be written, for more
+	 * input, or, once the game is over and everything has been written, for nothing, closing the connection.
+	 */
+	private void flush(SelectionKey key, Connection c) throws IOException {
+		if (c.out == null) {
+			String s = c.session.takeOutput();
+			if (!s.isEmpty())
+				c.out = ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+		}
+		if (c.out != null)
+			key.interestOps(SelectionKey.OP_WRITE);
+		else if (c.session.isOver())
+			disconnect(key);
+		else
+			key.interestOps(SelectionKey.OP_READ);
+	}
+
+	/**
+	 * Private utility method, closes a connection.
+	 */
+	private void disconnect(SelectionKey key) {
+		if (key.attachment() != null)
+			sessions --;
+		key.attach(null);
+		key.cancel();
+		try {
+			key.channel().close();
+		} catch (IOException e) {
+			//Already closed.
+		}
+	}
+
+	/**
+	 * A connected client: its game, the part of a line it has sent so far, and the output waiting to be written to it.
+	 */
+	private static class Connection {
+		final GameSession session;
+		final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+		ByteBuffer out;
+
+		Connection(GameSession session) {
+			this.session = session;
+		}
+	}
+
+	/**
+	 * Runs a server until the process is stopped.
+	 * @param args optionally, the port to listen on(defaults to DEFAULT_PORT), then the seed to generate the sessions' seeds from.
+	 */
+	public static void main(String[] args) throws IOException {
+		CardsUtil.load();
+		Metrics.start();
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		try (GameServer server = new GameServer(port, seed)) {
+			System.out.println("Serving games on " + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort());
+			server.run();
+		}
+	}
+
+}
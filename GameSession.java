@@ -0,0 +1,209 @@
+/**
+ * One player's game, driven one line of input at a time rather than by a blocking Controller, so that a GameServer can run thousands of games on
+ * a single thread. Each session has its own Player, Deck, MonsterFactory and GameRandom; the only things sessions share are the loaded cards and the
+ * monster prototypes, which are never modified(see CardsUtil and MonsterPrototype).
+ *
+ * The session is its own Controller and EventSink: the engine is only ever stepped(startPlayerTurn, playCard, endTurn), so the Controller is never
+ * asked to choose, and every message is collected until the server takes it with takeOutput.
+ */
+public class GameSession implements Controller, EventSink {
+
+	/** The commands a player can send, shown whenever they are asked to act. */
+	public static final String COMMANDS = "Commands: play <number> [target], end, hand, stats, quit";
+
+	private final GameRandom random;
+	private final MonsterFactory monsters;
+	private final StringBuilder output = new StringBuilder();
+	private Player player;
+	private GameEngine engine;
+	private int won;
+	private boolean over;
+
+	/**
+	 * Creates a session with its own monster prototypes and asks for the player's name. CardsUtil must already be loaded.
+	 * @param seed the seed to generate the session's random numbers from.
+	 */
+	public GameSession(long seed) {
+		this(seed, Game.createPrototypes());
+	}
+
+	/**
+	 * Creates a session and asks for the player's name. CardsUtil must already be loaded.
+	 * @param seed the seed to generate the session's random numbers from.
+	 * @param prototypes the monsters the player is challenged by, which may be shared with other sessions.
+	 */
+	public GameSession(long seed, MonsterPrototype[] prototypes) {
+		random = new GameRandom(seed);
+		monsters = new MonsterFactory(prototypes);
+		message("Welcome to Slay the Spire! You will be challenged by enemies until you are defeated.\nPlease enter your name:");
+	}
+
+	/**
+	 * Handles one line sent by the player: their name, if they have not given it yet, otherwise a command. Anything that is not a valid command is
+	 * answered with the list of commands, and changes nothing.
+	 * @param line the line, without its line terminator.
+	 */
+	public void handle(String line) {
+		if (over)
+			return;
+		line = line.trim();
+		if (player == null) {
+			start(line.isEmpty() ? "Player" : line);
+			return;
+		}
+		String[] words = line.split("\\s+");
+		switch (words[0].toLowerCase()) {
+			case "play":
+				play(words.length == 2 || words.length == 3 ? Controller.parseIndex(words[1]) : -1,
+						words.length == 3 ? Controller.parseIndex(words[2]) : engine.getEncounter().firstAliveIndex());
+				break;
+			case "end":
+				endTurn();
+				break;
+			case "hand":
+				prompt();
+				break;
+			case "stats":
+				stats(player, engine.getEncounter());
+				break;
+			case "quit":
+				finish();
+				break;
+			default:
+				message("Unknown command \"" + line + "\".\n" + COMMANDS);
+		}
+	}
+
+	/**
+	 * @return everything the session has output since the last call, possibly nothing.
+	 */
+	public String takeOutput() {
+		String s = output.toString();
+		output.setLength(0);
+		return s;
+	}
+
+	/**
+	 * @return whether the game is over, because the player was defeated or quit. A session that is over ignores any further input.
+	 */
+	public boolean isOver() {
+		return over;
+	}
+
+	/**
+	 * @return the session's Player, or null before they have given their name.
+	 */
+	public Player getPlayer() {
+		return player;
+	}
+
+	/**
+	 * @return the number of combats the player has won.
+	 */
+	public int getCombatsWon() {
+		return won;
+	}
+
+	/**
+	 * Private utility method, creates the player with the same starting deck as Game.main, and starts the first combat.
+	 */
+	private void start(String name) {
+		player = new Player(name, 50, CardsUtil.get("Strike"), CardsUtil.get("Strike"), CardsUtil.get("Strike"), CardsUtil.get("Defend"),
+				CardsUtil.randomP(random), CardsUtil.randomP(random), CardsUtil.randomP(random));
+		engine = new GameEngine(player, monsters, this, this, random);
+		message("Welcome, " + name + "!");
+		engine.startCombat(Game.getNextMonster(monsters, random));
+		engine.startPlayerTurn();
+		prompt();
+	}
+
+	/**
+	 * Private utility method, plays a card from the hand on a monster, ending the turn if it defeats the last monster.
+	 */
+	private void play(int index, int target) {
+		Encounter encounter = engine.getEncounter();
+		if (index < 0 || index >= player.getDeck().getHandSize()) {
+			message("There is no such card in your hand.");
+			prompt();
+			return;
+		}
+		if (target < 0 || target >= encounter.size() || !encounter.get(target).alive()) {
+			message("There is no such monster to target.");
+			prompt();
+			return;
+		}
+		if (!engine.playCard(index, target))
+			message("You don't have enough energy.");
+		if (!encounter.alive()) {
+			endTurn();
+			return;
+		}
+		message(encounter.intentions());
+		stats(player, encounter);
+		prompt();
+	}
+
+	/**
+	 * Private utility method, ends the player's turn, and starts either their next turn or, once the combat is over, the next combat.
+	 */
+	private void endTurn() {
+		engine.endTurn();
+		if (engine.isCombatOver()) {
+			engine.endCombat();
+			monsters.release(engine.getEncounter());
+			if (!engine.playerWon()) {
+				finish();
+				return;
+			}
+			won ++;
+			engine.startCombat(Game.getNextMonster(monsters, random));
+		}
+		engine.startPlayerTurn();
+		prompt();
+	}
+
+	/**
+	 * Private utility method, ends the game.
+	 */
+	private void finish() {
+		over = true;
+		message("Game over. You won " + won + (won == 1 ? " combat." : " combats."));
+	}
+
+	/**
+	 * Private utility method, shows the hand and the commands.
+	 */
+	private void prompt() {
+		message("Your hand:" + player.getDeck().handToString() + "\n" + COMMANDS);
+	}
+
+	@Override
+	public void message(String text) {
+		if (!text.isEmpty())
+			output.append(text).append('\n');
+	}
+
+	/**
+	 * Never asked: the session steps the engine itself.
+	 */
+	@Override
+	public int chooseCard(GameEngine engine) {
+		return END_TURN;
+	}
+
+	/**
+	 * Never asked: the session steps the engine itself.
+	 */
+	@Override
+	public boolean confirmCard(GameEngine engine, Card card) {
+		return true;
+	}
+
+	/**
+	 * Does nothing: the player reads the output at their own pace.
+	 */
+	@Override
+	public void acknowledge(GameEngine engine) {
+	}
+
+}
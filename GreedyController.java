@@ -0,0 +1,27 @@
+/**
+ * A simple automated player: plays the first card in the hand that it has enough energy for, and ends the turn once it cannot afford any card.
+ * Never pauses, so a GameEngine using it runs at full speed.
+ */
+public class GreedyController implements Controller {
+
+	@Override
+	public int chooseCard(GameEngine engine) {
+		Player player = engine.getPlayer();
+		Deck deck = player.getDeck();
+		for (int i = 0; i < deck.getHandSize(); i ++) {
+			if (deck.getCardInHand(i).getCost() <= player.getEnergy())
+				return i;
+		}
+		return END_TURN;
+	}
+
+	@Override
+	public boolean confirmCard(GameEngine engine, Card card) {
+		return true;
+	}
+
+	@Override
+	public void acknowledge(GameEngine engine) {
+	}
+
+}
@@ -0,0 +1,128 @@
+import java.beans.ConstructorProperties;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how long an operation takes, in buckets by powers of two: bucket i counts the times from 2^(i-1) up to 2^i - 1 nanoseconds(bucket 0 counts
+ * times of 0). Recording a time only increments a LongAdder, so any number of threads can record at once without contending, and the histogram
+ * never grows. Percentiles are reported as the upper bound of the bucket they fall in, so they are accurate to within a factor of two.
+ */
+public class LatencyHistogram {
+
+	private final LongAdder[] buckets = new LongAdder[64];
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		for (int i = 0; i < buckets.length; i ++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Counts one time.
+	 * @param nanos how long the operation took, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		buckets[64 - Long.numberOfLeadingZeros(nanos)].increment();
+		total.add(nanos);
+		max.accumulate(nanos);
+	}
+
+	/**
+	 * Removes every time counted.
+	 */
+	public void reset() {
+		for (LongAdder b : buckets)
+			b.reset();
+		total.reset();
+		max.reset();
+	}
+
+	/**
+	 * @return the count, mean, percentiles and maximum of the times counted so far.
+	 */
+	public Snapshot snapshot() {
+		long[] counts = new long[buckets.length];
+		long count = 0;
+		for (int i = 0; i < buckets.length; i ++)
+			count += counts[i] = buckets[i].sum();
+		double micros = count == 0 ? 0 : total.sum() / 1000.0 / count;
+		return new Snapshot(count, micros, percentile(counts, count, 0.5), percentile(counts, count, 0.99), max.get() / 1000.0);
+	}
+
+	/**
+	 * Private utility method, finds the upper bound, in microseconds, of the bucket holding a given fraction of the counted times.
+	 */
+	private static double percentile(long[] counts, long count, double fraction) {
+		long rank = (long) Math.ceil(count * fraction), seen = 0;
+		for (int i = 0; i < counts.length; i ++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0)
+				return i == 0 ? 0 : Math.pow(2, i) / 1000.0;
+		}
+		return 0;
+	}
+
+	/**
+	 * The statistics of a histogram at one moment, in microseconds. Shown as a composite value through JMX.
+	 */
+	public static class Snapshot {
+		private final long count;
+		private final double meanMicros, p50Micros, p99Micros, maxMicros;
+
+		@ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+		public Snapshot(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+			this.count = count;
+			this.meanMicros = meanMicros;
+			this.p50Micros = p50Micros;
+			this.p99Micros = p99Micros;
+			this.maxMicros = maxMicros;
+		}
+
+		/**
+		 * @return the number of times counted.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the mean time.
+		 */
+		public double getMeanMicros() {
+			return meanMicros;
+		}
+
+		/**
+		 * @return the time half of the times are at or below.
+		 */
+		public double getP50Micros() {
+			return p50Micros;
+		}
+
+		/**
+		 * @return the time 99% of the times are at or below.
+		 */
+		public double getP99Micros() {
+			return p99Micros;
+		}
+
+		/**
+		 * @return the longest time.
+		 */
+		public double getMaxMicros() {
+			return maxMicros;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count %d, mean %.2fus, p50 %.2fus, p99 %.2fus, max %.2fus", count, meanMicros, p50Micros, p99Micros, maxMicros);
+		}
+	}
+
+}
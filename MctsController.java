@@ -0,0 +1,291 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * An automated player that picks each card(or ends the turn) by Monte Carlo Tree Search over the current combat. For every decision, the choices
+ * available are the cards in the hand the player can afford, plus ending the turn. Each iteration restores the combat to the current position,
+ * makes one choice(picked by UCB1, balancing choices that have done well against ones that have been tried less), then plays the rest of the combat
+ * out with random moves and scores the outcome. The choice that was tried the most is made.
+ * 
+ * The search uses root parallelism: each thread searches from its own copy of the Player and Encounter, with its own random numbers, and the
+ * statistics of all threads are added together at the end. A decision stops searching once either the iteration budget or the time budget runs out.
+ * Future card draws and monster moves are not known to the player, so each iteration reseeds its copy's GameRandom rather than using the game's.
+ * 
+ * Choices that lead to the same position(for example, two copies of the same card in the hand) are searched as one, and the scores of every position
+ * searched are kept in a TranspositionTable shared by all threads and all decisions, so a position reached again(for example, by playing the same
+ * cards in a different order) starts with the statistics it has already gathered.
+ */
+public class MctsController implements Controller {
+
+	private static final double EXPLORATION = Math.sqrt(2);
+
+	private final int iterations;
+	private final long timeBudgetNanos;
+	private final int threads;
+	private int rolloutTurns = 30;
+	private final GameRandom random;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private TranspositionTable table = new TranspositionTable(1 << 16);
+
+	/**
+	 * Creates a controller with the given search budget.
+	 * @param iterations the most iterations to run for each decision, shared between all threads.
+	 * @param timeBudgetMillis the most time to spend on each decision, in milliseconds, or 0 for no time limit.
+	 * @param threads how many threads to search with.
+	 * @param seed the seed for the random numbers used while searching.
+	 */
+	public MctsController(int iterations, long timeBudgetMillis, int threads, long seed) {
+		this.iterations = Math.max(1, iterations);
+		this.timeBudgetNanos = timeBudgetMillis * 1000000;
+		this.threads = Math.max(1, threads);
+		this.random = new GameRandom(seed);
+	}
+
+	/**
+	 * @param rolloutTurns the most turns a playout may continue past the current turn before it is scored as unfinished. Defaults to 30.
+	 */
+	public void setRolloutTurns(int rolloutTurns) {
+		this.rolloutTurns = Math.max(1, rolloutTurns);
+	}
+
+	/**
+	 * @param pool the fork-join pool to run searches in. Defaults to the common pool.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @param table the table to keep the scores of searched positions in, which may be shared with other controllers. Defaults to a table of 65536
+	 * entries used only by this controller.
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	@Override
+	public int chooseCard(GameEngine engine) {
+		int[] actions = actions(engine.getPlayer());
+		if (actions.length == 1)
+			return actions[0];
+
+		CombatState root = engine.saveState();
+		long deadline = timeBudgetNanos > 0 ? System.nanoTime() + timeBudgetNanos : Long.MAX_VALUE;
+		List<Future<Search>> searches = new ArrayList<Future<Search>>();
+		for (int t = 0; t < threads; t ++) {
+			Search s = new Search(engine, root, actions, table, iterations / threads + (t < iterations % threads ? 1 : 0), deadline, random.split());
+			searches.add(pool.submit(s));
+		}
+
+		int[] visits = new int[actions.length];
+		try {
+			for (Future<Search> f : searches) {
+				Search s = f.get();
+				for (int a = 0; a < actions.length; a ++)
+					visits[a] += s.visits[a];
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("search failed", e.getCause());
+		}
+
+		int best = 0;
+		for (int a = 1; a < actions.length; a ++)
+			if (visits[a] > visits[best])
+				best = a;
+		return actions[best];
+	}
+
+	@Override
+	public boolean confirmCard(GameEngine engine, Card card) {
+		return true;
+	}
+
+	@Override
+	public void acknowledge(GameEngine engine) {
+	}
+
+	/**
+	 * Private utility method, lists the choices available to a player: the index of each card in the hand they can afford, then END_TURN.
+	 */
+	private static int[] actions(Player player) {
+		Deck deck = player.getDeck();
+		int[] actions = new int[deck.getHandSize() + 1];
+		int n = 0;
+		for (int i = 0; i < deck.getHandSize(); i ++)
+			if (deck.getCardInHand(i).getCost() <= player.getEnergy())
+				actions[n ++] = i;
+		actions[n ++] = END_TURN;
+		return Arrays.copyOf(actions, n);
+	}
+
+	/**
+	 * Scores the end of a playout from 0 to 1: a win scores at least 0.5, more with more health left; a loss scores 0; an unfinished combat scores
+	 * below 0.5, more with more damage dealt to the whole group and health left.
+	 */
+	static double score(Player player, Encounter encounter) {
+		double health = (double) player.getHealth() / player.getMaxHealth();
+		if (!player.alive())
+			return 0;
+		if (!encounter.alive())
+			return 0.5 + 0.5 * health;
+		return 0.25 * (1 - (double) encounter.totalHealth() / encounter.totalMaxHealth()) + 0.25 * health;
+	}
+
+	/**
+	 * One thread's search: runs iterations on its own copy of the combat and counts how often each choice was made and how well it scored.
+	 */
+	private class Search implements Callable<Search> {
+		private final CombatState root;
+		private final int[] actions;
+		private final TranspositionTable table;
+		private final int budget;
+		private final long deadline;
+		private final GameRandom random;
+		private final Player player;
+		private final Encounter encounter;
+		private final GameEngine engine;
+		private final int turnLimit;
+
+		private final int[] visits;
+		private final double[] totals;
+		//The hash of the position each choice leads to, and whether the choice is the first to lead there(later ones are not searched).
+		private final long[] hashes;
+		private final boolean[] searched;
+		private int total;
+
+		private Search(GameEngine game, CombatState root, int[] actions, TranspositionTable table, int budget, long deadline, GameRandom random) {
+			this.root = root;
+			this.actions = actions;
+			this.table = table;
+			this.budget = budget;
+			this.deadline = deadline;
+			this.random = random;
+			player = new Player(game.getPlayer());
+			encounter = new Encounter(game.getEncounter());
+			engine = new GameEngine(player, null, new RolloutController(random), null, new GameRandom(0));
+			turnLimit = game.getTurn() + rolloutTurns;
+			visits = new int[actions.length];
+			totals = new double[actions.length];
+			hashes = new long[actions.length];
+			searched = new boolean[actions.length];
+		}
+
+		@Override
+		public Search call() {
+			engine.startCombat(encounter);
+			engine.setTurnLimit(turnLimit);
+			hashChoices();
+			for (int i = 0; i < budget && System.nanoTime() < deadline; i ++) {
+				engine.restoreState(root);
+				engine.getRandom().setState(random.nextLong());
+				int a = select();
+				double score = playout(actions[a]);
+				totals[a] += score;
+				visits[a] ++;
+				total ++;
+				table.add(hashes[a], score);
+			}
+			for (int a = 0; a < actions.length; a ++)
+				if (!searched[a])
+					visits[a] = 0;
+			return this;
+		}
+
+		/**
+		 * Finds the position each choice leads to, marks the choices that lead to the same position as an earlier choice, and starts each choice
+		 * with the statistics the table already holds for its position. Ending the turn is hashed as the current position with the turn ended.
+		 */
+		private void hashChoices() {
+			for (int a = 0; a < actions.length; a ++) {
+				engine.restoreState(root);
+				if (actions[a] == END_TURN) {
+					hashes[a] = ~engine.getHash();
+				} else {
+					engine.playCard(actions[a]);
+					hashes[a] = engine.getHash();
+				}
+				searched[a] = true;
+				for (int b = 0; b < a; b ++)
+					if (hashes[b] == hashes[a])
+						searched[a] = false;
+				if (searched[a]) {
+					visits[a] = table.getVisits(hashes[a]);
+					totals[a] = table.getValue(hashes[a]) * visits[a];
+					total += visits[a];
+				}
+			}
+		}
+
+		/**
+		 * Picks the choice with the highest UCB1 value, trying every choice once first.
+		 */
+		private int select() {
+			int best = 0;
+			double bestValue = -1;
+			double logN = Math.log(total + 1);
+			for (int a = 0; a < actions.length; a ++) {
+				if (!searched[a])
+					continue;
+				if (visits[a] == 0)
+					return a;
+				double value = totals[a] / visits[a] + EXPLORATION * Math.sqrt(logN / visits[a]);
+				if (value > bestValue) {
+					bestValue = value;
+					best = a;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Makes a choice, then plays the rest of the combat out with random moves.
+		 * @return the playout's score.
+		 */
+		private double playout(int action) {
+			if (action != END_TURN) {
+				engine.playCard(action);
+				while (encounter.alive() && engine.nextCard());
+			}
+			engine.endTurn();
+			while (!engine.isCombatOver()) {
+				engine.playerTurn();
+				engine.endTurn();
+			}
+			return score(player, encounter);
+		}
+	}
+
+	/**
+	 * Plays random moves during playouts: any affordable card in the hand, or ending the turn, each equally likely.
+	 */
+	private static class RolloutController implements Controller {
+		private final GameRandom random;
+
+		private RolloutController(GameRandom random) {
+			this.random = random;
+		}
+
+		@Override
+		public int chooseCard(GameEngine engine) {
+			int[] actions = actions(engine.getPlayer());
+			return actions[random.nextInt(actions.length)];
+		}
+
+		@Override
+		public boolean confirmCard(GameEngine engine, Card card) {
+			return true;
+		}
+
+		@Override
+		public void acknowledge(GameEngine engine) {
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms of the game's hot paths: GameEngine.playerTurn and endTurn, Card.use(timed where the engine plays a player's
+ * card), the monsters' moves(Encounter.act) and Deck.startTurn. Metrics are turned on by starting the JVM with -Dgame.metrics=true. ENABLED is a compile-time constant to the JIT, so when metrics
+ * are off every "if (Metrics.ENABLED)" block is removed from the compiled code and costs nothing.
+ * 
+ * When metrics are on, the counters are exact, but each GameEngine adds up its own counts and only adds them to the shared counters once per turn,
+ * and only one in every SAMPLE calls(counted separately by each GameEngine and Deck) is timed, so that a busy simulation spends little time on
+ * System.nanoTime() and shared counters. SAMPLE is set with -Dgame.metrics.sample(a power of two, defaulting to 16; 1 times every call).
+ *
+ * The metrics can be read through JMX(see MetricsMXBean), or printed as text every few seconds by starting the JVM with -Dgame.metrics.period=seconds.
+ * Simulations(CombatSimulator, MctsController, RewardEvaluator) run through GameEngine too, so their combats are counted along with the game's.
+ */
+public final class Metrics {
+
+	public static final boolean ENABLED = Boolean.getBoolean("game.metrics");
+	public static final String OBJECT_NAME = "game:type=Metrics";
+	public static final int SAMPLE = Integer.highestOneBit(Math.max(1, Integer.getInteger("game.metrics.sample", 16)));
+
+	static final LongAdder CARDS_PLAYED = new LongAdder(), DAMAGE_DEALT = new LongAdder(), ENERGY_SPENT = new LongAdder(), COMBATS = new LongAdder();
+	static final LatencyHistogram PLAYER_TURN = new LatencyHistogram(), END_TURN = new LatencyHistogram(), CARD_USE = new LatencyHistogram(),
+			MONSTER_TURN = new LatencyHistogram(), DECK_START_TURN = new LatencyHistogram();
+
+	private static volatile long since = System.nanoTime();
+	private static boolean started;
+
+	private Metrics() {
+	}
+
+	/**
+	 * If metrics are enabled, registers them with the platform MBean server and, if -Dgame.metrics.period is set, starts printing them to
+	 * System.err. Does nothing if metrics are disabled or have already been started.
+	 */
+	public static synchronized void start() {
+		if (!ENABLED || started)
+			return;
+		started = true;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			System.err.println("Could not register metrics with JMX: " + e.getMessage());
+		}
+		long period = Long.getLong("game.metrics.period", 0);
+		if (period > 0)
+			report(period * 1000, System.err::println);
+	}
+
+	/**
+	 * Prints a snapshot of the metrics at a fixed rate from a daemon thread, until the JVM exits.
+	 * @param periodMillis the time between snapshots, in milliseconds.
+	 * @param out receives each snapshot.
+	 * @return the executor printing the snapshots; shut it down to stop.
+	 */
+	public static ScheduledExecutorService report(long periodMillis, Consumer<String> out) {
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "metrics-reporter");
+			t.setDaemon(true);
+			return t;
+		});
+		reporter.scheduleAtFixedRate(() -> out.accept(snapshot()), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+		return reporter;
+	}
+
+	/**
+	 * @return every counter and histogram, one per line.
+	 */
+	public static String snapshot() {
+		StringBuilder s = new StringBuilder(512);
+		s.append(String.format("Metrics: %d cards played, %d damage dealt, %d energy spent, %d combats(%.1f per second)", CARDS_PLAYED.sum(),
+				DAMAGE_DEALT.sum(), ENERGY_SPENT.sum(), COMBATS.sum(), combatsPerSecond()));
+		s.append("\n  player turn:     ").append(PLAYER_TURN.snapshot());
+		s.append("\n  end turn:        ").append(END_TURN.snapshot());
+		s.append("\n  card use:        ").append(CARD_USE.snapshot());
+		s.append("\n  monster turn:    ").append(MONSTER_TURN.snapshot());
+		s.append("\n  deck start turn: ").append(DECK_START_TURN.snapshot());
+		return s.toString();
+	}
+
+	/**
+	 * @param tick how many calls of an operation the caller has counted so far.
+	 * @return whether the call should be timed.
+	 */
+	static boolean sampled(int tick) {
+		return (tick & (SAMPLE - 1)) == 0;
+	}
+
+	/**
+	 * Adds the counts a GameEngine has gathered to the shared counters.
+	 */
+	static void add(int cardsPlayed, int energySpent, int damageDealt) {
+		if (cardsPlayed != 0)
+			CARDS_PLAYED.add(cardsPlayed);
+		if (energySpent != 0)
+			ENERGY_SPENT.add(energySpent);
+		if (damageDealt != 0)
+			DAMAGE_DEALT.add(damageDealt);
+	}
+
+	/**
+	 * Sets every counter back to 0 and empties every histogram.
+	 */
+	public static void reset() {
+		CARDS_PLAYED.reset();
+		DAMAGE_DEALT.reset();
+		ENERGY_SPENT.reset();
+		COMBATS.reset();
+		PLAYER_TURN.reset();
+		END_TURN.reset();
+		CARD_USE.reset();
+		MONSTER_TURN.reset();
+		DECK_START_TURN.reset();
+		since = System.nanoTime();
+	}
+
+	/**
+	 * Private utility method, gets the number of combats started per second since the metrics were started or last reset.
+	 */
+	private static double combatsPerSecond() {
+		double seconds = (System.nanoTime() - since) / 1e9;
+		return seconds <= 0 ? 0 : COMBATS.sum() / seconds;
+	}
+
+	/**
+	 * The MXBean registered with JMX, reading the static metrics above.
+	 */
+	private static class Bean implements MetricsMXBean {
+		@Override
+		public long getCardsPlayed() {
+			return CARDS_PLAYED.sum();
+		}
+
+		@Override
+		public long getDamageDealt() {
+			return DAMAGE_DEALT.sum();
+		}
+
+		@Override
+		public long getEnergySpent() {
+			return ENERGY_SPENT.sum();
+		}
+
+		@Override
+		public long getCombats() {
+			return COMBATS.sum();
+		}
+
+		@Override
+		public double getCombatsPerSecond() {
+			return combatsPerSecond();
+		}
+
+		@Override
+		public LatencyHistogram.Snapshot getPlayerTurn() {
+			return PLAYER_TURN.snapshot();
+		}
+
+		@Override
+		public LatencyHistogram.Snapshot getEndTurn() {
+			return END_TURN.snapshot();
+		}
+
+		@Override
+		public LatencyHistogram.Snapshot getCardUse() {
+			return CARD_USE.snapshot();
+		}
+
+		@Override
+		public LatencyHistogram.Snapshot getMonsterTurn() {
+			return MONSTER_TURN.snapshot();
+		}
+
+		@Override
+		public LatencyHistogram.Snapshot getDeckStartTurn() {
+			return DECK_START_TURN.snapshot();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+	}
+
+}
@@ -0,0 +1,61 @@
+/**
+ * The game's metrics as seen through JMX(for example in JConsole), under the name Metrics.OBJECT_NAME. See Metrics.
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * @return the number of cards played successfully.
+	 */
+	long getCardsPlayed();
+
+	/**
+	 * @return the total health taken from monsters by the player's cards.
+	 */
+	long getDamageDealt();
+
+	/**
+	 * @return the total energy the player has spent on cards.
+	 */
+	long getEnergySpent();
+
+	/**
+	 * @return the number of combats that have started.
+	 */
+	long getCombats();
+
+	/**
+	 * @return the number of combats started per second since the metrics were started or last reset.
+	 */
+	double getCombatsPerSecond();
+
+	/**
+	 * @return the times taken by GameEngine.playerTurn, including the Controller's decisions.
+	 */
+	LatencyHistogram.Snapshot getPlayerTurn();
+
+	/**
+	 * @return the times taken by GameEngine.endTurn, including the monsters' moves.
+	 */
+	LatencyHistogram.Snapshot getEndTurn();
+
+	/**
+	 * @return the times taken by Card.use, for cards played by the player.
+	 */
+	LatencyHistogram.Snapshot getCardUse();
+
+	/**
+	 * @return the times taken by Encounter.act, which makes every living monster's move in one pass, without writing to the CombatLog.
+	 */
+	LatencyHistogram.Snapshot getMonsterTurn();
+
+	/**
+	 * @return the times taken by Deck.startTurn.
+	 */
+	LatencyHistogram.Snapshot getDeckStartTurn();
+
+	/**
+	 * Sets every counter back to 0 and empties every histogram.
+	 */
+	void reset();
+
+}
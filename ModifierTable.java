@@ -0,0 +1,282 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Stores the modifiers used by Attribute objects(through an EntityStore) in primitive arrays, so adding, applying and removing modifiers never allocates or boxes.
+ * The table holds any number of rows, each row being one list of modifiers(an amount and a duration per modifier). Every row starts with room for
+ * INITIAL_CAPACITY modifiers, in one pool shared by every row. When a row runs out of room, it alone is moved to the end of the pool with twice the
+ * room, so one busy row never makes the others any larger. The room a moved row leaves behind is reclaimed by compacting the pool, rather than
+ * growing it, once an eighth of the pool is left behind. A copy of a table only takes the room its modifiers need.
+ * 
+ * Every change to a row returns how much it changed the row's hash(see Zobrist), so that the owner of the table can keep a running hash. A row's hash
+ * is the sum of the keys of its modifiers; rows are keyed by their position within a period of rows, so that equal rows of different Entities hash alike.
+ */
+class ModifierTable {
+
+	private static final int INITIAL_CAPACITY = 2;
+
+	private final int period;
+	//top is the end of the used part of the pool, and unused the room within it that no row holds any more.
+	private int rows, top, unused;
+	private int[] amounts, durations;
+	//One element per row: the number of modifiers in the row, where they start in the pool, and the room the row has there.
+	private int[] sizes, offsets, capacities;
+
+	/**
+	 * Creates a table with a given number of empty rows.
+	 * @param rows the number of modifier lists to hold.
+	 * @param period rows a multiple of this apart hash alike.
+	 */
+	ModifierTable(int rows, int period) {
+		this.period = period;
+		this.rows = rows;
+		amounts = new int[rows * INITIAL_CAPACITY];
+		durations = new int[rows * INITIAL_CAPACITY];
+		sizes = new int[rows];
+		offsets = new int[rows];
+		capacities = new int[rows];
+		for (int r = 0; r < rows; r ++) {
+			offsets[r] = top;
+			capacities[r] = INITIAL_CAPACITY;
+			top += INITIAL_CAPACITY;
+		}
+	}
+
+	/**
+	 * Clones the modifiers of a given table exactly, giving each row only the room its modifiers need.
+	 * @param t the table to copy.
+	 */
+	ModifierTable(ModifierTable t) {
+		period = t.period;
+		rows = t.rows;
+		sizes = t.sizes.clone();
+		pack(t, true, 0);
+	}
+
+	/**
+	 * @param row which modifier list to look at.
+	 * @return the number of modifiers in the row.
+	 */
+	int size(int row) {
+		return sizes[row];
+	}
+
+	/**
+	 * Adds a modifier to the end of a row.
+	 * @param row which modifier list to add to.
+	 * @param amount how much the modifier changes the Attribute each time it is applied.
+	 * @param duration how many more times the modifier will be applied; -1 will cause it to be applied until the row is cleared.
+	 * @return the change in the row's hash.
+	 */
+	long add(int row, int amount, int duration) {
+		if (sizes[row] == capacities[row])
+			reserve(row, sizes[row] + 1);
+		int i = offsets[row] + sizes[row] ++;
+		amounts[i] = amount;
+		durations[i] = duration;
+		return key(row, i);
+	}
+
+	/**
+	 * Applies every modifier in a row to a value, from the last modifier added to the first, exactly as an Attribute's modifiers have always
+	 * been applied: a modifier whose duration has reached 0 is removed without being applied, otherwise its duration is reduced by 1(unless it is -1)
+	 * and its amount is added to the value, which cannot go below the given minimum. Removed modifiers are compacted away without changing the order
+	 * of the ones that remain, since the order in which amounts are added can matter when the value is held at its minimum.
+	 * @param row which modifier list to apply.
+	 * @param values the array holding the value to modify.
+	 * @param index position of the value in the array.
+	 * @param minimum the value cannot go below this.
+	 * @return the change in the row's hash.
+	 */
+	long apply(int row, int[] values, int index, int minimum) {
+		int start = offsets[row], end = start + sizes[row], kept = end;
+		long change = 0;
+		for (int i = end - 1; i >= start; i --) {
+			if (durations[i] == 0) {
+				change -= key(row, i);
+				continue;
+			}
+			if (durations[i] != -1) {
+				change -= key(row, i);
+				durations[i] --;
+				change += key(row, i);
+			}
+			values[index] = Math.max(minimum, values[index] + amounts[i]);
+			kept --;
+			amounts[kept] = amounts[i];
+			durations[kept] = durations[i];
+		}
+		if (kept != start) {
+			System.arraycopy(amounts, kept, amounts, start, end - kept);
+			System.arraycopy(durations, kept, durations, start, end - kept);
+		}
+		sizes[row] = end - kept;
+		return change;
+	}
+
+	/**
+	 * Removes every modifier from a row.
+	 * @param row which modifier list to clear.
+	 * @return the change in the row's hash.
+	 */
+	long clear(int row) {
+		long change = -hash(row);
+		sizes[row] = 0;
+		return change;
+	}
+
+	/**
+	 * Replaces the modifiers in one row with a copy of the modifiers in a row of another table(or the same table).
+	 * @param from the table to copy from.
+	 * @param fromRow the row to copy.
+	 * @param toRow the row of this table to replace.
+	 * @return the change in the row's hash.
+	 */
+	long copyRow(ModifierTable from, int fromRow, int toRow) {
+		long change = -hash(toRow);
+		int n = from.sizes[fromRow];
+		sizes[toRow] = 0;
+		if (capacities[toRow] < n)
+			reserve(toRow, n);
+		System.arraycopy(from.amounts, from.offsets[fromRow], amounts, offsets[toRow], n);
+		System.arraycopy(from.durations, from.offsets[fromRow], durations, offsets[toRow], n);
+		sizes[toRow] = n;
+		return change + hash(toRow);
+	}
+
+	/**
+	 * Writes the modifiers in a row: their number, then the amount and duration of each.
+	 * @param row which modifier list to write.
+	 * @param out where to write it.
+	 */
+	void write(int row, DataOutput out) throws IOException {
+		out.writeInt(sizes[row]);
+		for (int i = offsets[row]; i < offsets[row] + sizes[row]; i ++) {
+			out.writeInt(amounts[i]);
+			out.writeInt(durations[i]);
+		}
+	}
+
+	/**
+	 * Replaces the modifiers in a row with modifiers read in the form written by write. Does not report the change in the row's hash.
+	 * @param row which modifier list to replace.
+	 * @param in where to read the modifiers from.
+	 */
+	void read(int row, DataInput in) throws IOException {
+		sizes[row] = 0;
+		for (int n = in.readInt(); n > 0; n --)
+			add(row, in.readInt(), in.readInt());
+	}
+
+	/**
+	 * @param row which modifier list to hash.
+	 * @return the sum of the keys of the modifiers in the row.
+	 */
+	long hash(int row) {
+		long h = 0;
+		for (int i = offsets[row]; i < offsets[row] + sizes[row]; i ++)
+			h += key(row, i);
+		return h;
+	}
+
+	/**
+	 * Private utility method, gets the key of the modifier at a given position of a row.
+	 */
+	private long key(int row, int i) {
+		return Zobrist.key(row % period, amounts[i], durations[i]);
+	}
+
+	/**
+	 * @param row which modifier list to copy.
+	 * @return the modifiers in the row as a list of alternating amounts and durations.
+	 */
+	ArrayList<Integer> toList(int row) {
+		ArrayList<Integer> list = new ArrayList<Integer>(sizes[row] * 2);
+		for (int i = offsets[row]; i < offsets[row] + sizes[row]; i ++) {
+			list.add(amounts[i]);
+			list.add(durations[i]);
+		}
+		return list;
+	}
+
+	/**
+	 * Adds empty rows to the end of the table.
+	 * @param newRows the total number of rows the table should hold; must not be less than the current number.
+	 */
+	void addRows(int newRows) {
+		ensureRoom((newRows - rows) * INITIAL_CAPACITY);
+		sizes = Arrays.copyOf(sizes, newRows);
+		offsets = Arrays.copyOf(offsets, newRows);
+		capacities = Arrays.copyOf(capacities, newRows);
+		for (int r = rows; r < newRows; r ++) {
+			offsets[r] = top;
+			capacities[r] = INITIAL_CAPACITY;
+			top += INITIAL_CAPACITY;
+		}
+		rows = newRows;
+	}
+
+	/**
+	 * Private utility method, moves a row to the end of the pool with room for at least a given number of modifiers, doubling its room until it fits.
+	 */
+	private void reserve(int row, int n) {
+		int capacity = Math.max(INITIAL_CAPACITY, capacities[row]);
+		while (capacity < n)
+			capacity *= 2;
+		ensureRoom(capacity);
+		System.arraycopy(amounts, offsets[row], amounts, top, sizes[row]);
+		System.arraycopy(durations, offsets[row], durations, top, sizes[row]);
+		unused += capacities[row];
+		offsets[row] = top;
+		capacities[row] = capacity;
+		top += capacity;
+	}
+
+	/**
+	 * Private utility method, makes room for a given number of values at the end of the pool, compacting the pool if at least an eighth of it is
+	 * unused and growing it by an eighth otherwise, so that rows moving in a large table leave little spare room. A moved row always leaves behind
+	 * less room than it moves to, so no more than half of the pool can ever be unused; compacting reclaims at least as much as growing would add, for
+	 * the same copy.
+	 */
+	private void ensureRoom(int n) {
+		if (top + n <= amounts.length)
+			return;
+		if (unused >= amounts.length >> 3) {
+			pack(this, false, n);
+			return;
+		}
+		int length = Math.max(amounts.length + (amounts.length >> 3), top + n);
+		amounts = Arrays.copyOf(amounts, length);
+		durations = Arrays.copyOf(durations, length);
+	}
+
+	/**
+	 * Private utility method, lays out the rows of a table(which may be this table) one after another in new arrays, with room for a given number of
+	 * values after them. The sizes of the rows must already be set. Trimmed rows only keep the room their modifiers need, down to INITIAL_CAPACITY.
+	 */
+	private void pack(ModifierTable from, boolean trim, int spare) {
+		int[] newOffsets = new int[rows], newCapacities = new int[rows];
+		int length = spare;
+		for (int r = 0; r < rows; r ++) {
+			newCapacities[r] = trim ? Math.max(INITIAL_CAPACITY, sizes[r]) : from.capacities[r];
+			length += newCapacities[r];
+		}
+		int[] newAmounts = new int[length], newDurations = new int[length];
+		top = 0;
+		for (int r = 0; r < rows; r ++) {
+			newOffsets[r] = top;
+			System.arraycopy(from.amounts, from.offsets[r], newAmounts, top, sizes[r]);
+			System.arraycopy(from.durations, from.offsets[r], newDurations, top, sizes[r]);
+			top += newCapacities[r];
+		}
+		amounts = newAmounts;
+		durations = newDurations;
+		offsets = newOffsets;
+		capacities = newCapacities;
+		unused = 0;
+	}
+
+}
@@ -0,0 +1,142 @@
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks ModifierTable against a model that keeps each row as a list of modifiers: runs random sequences of adds, applies, clears, row copies(within
+ * a table and between two tables), added rows and table copies on a pair of tables, and after every step compares every row's modifiers and hash,
+ * and the running hash built from the changes each call reports. Applying a row is also checked against the value the model computes.
+ *
+ * Rows that outgrow their room move to the end of the pool, so the sequences also compact the pool; the check counts how often, reading the table's
+ * private bookkeeping, and fails if it never happened. Prints a summary if every step matched, and otherwise fails with an IllegalStateException
+ * naming the sequence, step and row.
+ */
+public class ModifierTableCheck {
+
+	private static final int STEPS = 3000, PERIOD = 4;
+
+	/**
+	 * Runs the check.
+	 * @param args optionally, the number of sequences to run(300 by default).
+	 */
+	public static void main(String[] args) throws ReflectiveOperationException {
+		int sequences = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+		Field unused = ModifierTable.class.getDeclaredField("unused");
+		unused.setAccessible(true);
+		int compactions = 0;
+
+		for (int s = 0; s < sequences; s ++) {
+			GameRandom random = new GameRandom(s);
+			int rows = 1 + random.nextInt(12);
+			ModifierTable[] tables = {new ModifierTable(rows, PERIOD), new ModifierTable(rows, PERIOD)};
+			List<List<List<int[]>>> model = new ArrayList<List<List<int[]>>>();
+			long[][] hashes = new long[2][];
+			for (int t = 0; t < 2; t ++) {
+				model.add(new ArrayList<List<int[]>>());
+				addRows(model.get(t), rows);
+				hashes[t] = new long[rows];
+			}
+
+			for (int step = 0; step < STEPS; step ++) {
+				int before = unused.getInt(tables[0]) + unused.getInt(tables[1]);
+				int t = random.nextInt(2), row = random.nextInt(model.get(t).size()), op = random.nextInt(20);
+				ModifierTable table = tables[t];
+				List<int[]> modifiers = model.get(t).get(row);
+				if (op < 9) {
+					int amount = random.nextInt(7) - 3, duration = random.nextInt(5) - 1;
+					hashes[t][row] += table.add(row, amount, duration);
+					modifiers.add(new int[] {amount, duration});
+				} else if (op < 14) {
+					int minimum = random.nextInt(3) - 1;
+					int[] values = {random.nextInt(5)};
+					int expected = apply(modifiers, values[0], minimum);
+					hashes[t][row] += table.apply(row, values, 0, minimum);
+					if (values[0] != expected)
+						throw failure(s, step, row, "applied value " + values[0] + " instead of " + expected);
+				} else if (op < 15) {
+					hashes[t][row] += table.clear(row);
+					modifiers.clear();
+				} else if (op < 18) {
+					int from = random.nextInt(2), fromRow = random.nextInt(model.get(from).size());
+					hashes[t][row] += table.copyRow(tables[from], fromRow, row);
+					List<int[]> copy = new ArrayList<int[]>();
+					for (int[] m : model.get(from).get(fromRow))
+						copy.add(m.clone());
+					model.get(t).set(row, copy);
+				} else if (op < 19) {
+					if (model.get(t).size() < 200) {
+						int newRows = model.get(t).size() * 2;
+						table.addRows(newRows);
+						addRows(model.get(t), newRows - model.get(t).size());
+						hashes[t] = Arrays.copyOf(hashes[t], newRows);
+					}
+				} else {
+					tables[t] = new ModifierTable(table);
+				}
+				//Copying a table packs it too, but only compactions made to find room are counted.
+				if (op < 19 && unused.getInt(tables[0]) + unused.getInt(tables[1]) < before)
+					compactions ++;
+
+				for (int c = 0; c < 2; c ++)
+					for (int r = 0; r < model.get(c).size(); r ++)
+						compare(tables[c], r, model.get(c).get(r), hashes[c][r], s, step);
+			}
+		}
+		if (compactions == 0)
+			throw new IllegalStateException("no sequence compacted a pool; the check needs more sequences or steps");
+		System.out.println(sequences + " sequences of " + STEPS + " steps: every row matched the model, with " + compactions + " compactions");
+	}
+
+	/**
+	 * Private utility method, applies a model row to a value as ModifierTable.apply should: the newest modifier first, each counting its duration down
+	 * unless it is -1, and a modifier whose duration has reached 0 being removed instead, without reordering the others.
+	 * @return the new value.
+	 */
+	private static int apply(List<int[]> modifiers, int value, int minimum) {
+		for (int i = modifiers.size() - 1; i >= 0; i --) {
+			int[] m = modifiers.get(i);
+			if (m[1] == 0) {
+				modifiers.remove(i);
+			} else {
+				if (m[1] != -1)
+					m[1] --;
+				value = Math.max(minimum, value + m[0]);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Private utility method, fails if a row of a table differs from its model row, or from the hash built from the changes reported for it.
+	 */
+	private static void compare(ModifierTable table, int row, List<int[]> modifiers, long runningHash, int sequence, int step) {
+		List<Integer> expected = new ArrayList<Integer>();
+		long hash = 0;
+		for (int[] m : modifiers) {
+			expected.add(m[0]);
+			expected.add(m[1]);
+			hash += Zobrist.key(row % PERIOD, m[0], m[1]);
+		}
+		if (table.size(row) != modifiers.size() || !expected.equals(table.toList(row)))
+			throw failure(sequence, step, row, "expected " + expected + ", found " + table.toList(row));
+		if (table.hash(row) != hash || runningHash != hash)
+			throw failure(sequence, step, row, "hash " + table.hash(row) + ", running hash " + runningHash + ", expected " + hash);
+	}
+
+	/**
+	 * Private utility method, adds a number of empty model rows.
+	 */
+	private static void addRows(List<List<int[]>> rows, int n) {
+		for (int i = 0; i < n; i ++)
+			rows.add(new ArrayList<int[]>());
+	}
+
+	/**
+	 * Private utility method, creates the exception for a mismatch.
+	 */
+	private static IllegalStateException failure(int sequence, int step, int row, String problem) {
+		return new IllegalStateException("sequence " + sequence + ", step " + step + ", row " + row + ": " + problem);
+	}
+
+}
@@ -1,3 +1,6 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 
@@ -9,8 +12,15 @@ public class Monster extends Entity {
 	private ArrayList<Card> moves = new ArrayList<Card>();
 	private Card move;
 
- private String Strategy;
- private ArrayList<String[]> movesList = new ArrayList<String[]>();
+	//Used to pick random moves; if null, the calling thread's GameRandom is used.
+	private GameRandom random;
+
+	private MonsterStrategy strategy;
+	private int[] usesLeft;
+	private int rule;
+
+	//The prototype the Monster was made from, which reset puts it back to; null if it was not made from one.
+	private MonsterPrototype prototype;
 
 	/**
 	 * Creates a Monster with a given name, maximum health, and any number of Cards, which will be randomly accessed as the Monster's moves.
@@ -20,6 +30,14 @@ public class Monster extends Entity {
 		fillMoves(new ArrayList<Card> (Arrays.asList(moves)));
 	}
 
+	/**
+	 * Creates a Monster held in a new slot of the given EntityStore, with a given name, maximum health, and any number of Cards, which will be randomly accessed as the Monster's moves.
+	 */
+	public Monster(EntityStore store, String name, int maxHealth, Card... moves) {
+		super(store, name, maxHealth, maxHealth, 0, 0, 0);
+		fillMoves(new ArrayList<Card> (Arrays.asList(moves)));
+	}
+
 	/**
 	 * Creates a Monster exactly equal to another given Monster.
 	 * @param m the Monster to copy.
@@ -27,6 +45,49 @@ public class Monster extends Entity {
 	public Monster(Monster m) {
 		super(m);
 		fillMoves(m.getMoves());
+		restoreState(new State(m));
+		prototype = m.prototype;
+	}
+
+	/**
+	 * Creates a Monster from a prototype, held in a new slot of the given EntityStore, in the prototype's clean state.
+	 * @param store the store to hold the Monster in.
+	 * @param prototype the prototype to make the Monster from.
+	 */
+	Monster(EntityStore store, MonsterPrototype prototype) {
+		super(store, prototype.getName(), prototype.getMaxHealth(), prototype.getMaxHealth(), 0, 0, 0);
+		fillMoves(new ArrayList<Card>(Arrays.asList(prototype.getMoves())));
+		this.prototype = prototype;
+		reset();
+	}
+
+	/**
+	 * @return the prototype the Monster was made from(or the Monster it is a copy of was made from), or null if it was not made from one.
+	 */
+	public MonsterPrototype getPrototype() {
+		return prototype;
+	}
+
+	/**
+	 * Puts the Monster back into its prototype's clean state: its slot is overwritten with the prototype's, its move and random generator are
+	 * cleared, and its strategy counters are refilled in place. Takes the same time whatever happened to the Monster before, and allocates nothing
+	 * once the Monster has counters for its strategy.
+	 * @throws IllegalStateException if the Monster was not made from a prototype.
+	 */
+	void reset() {
+		if (prototype == null)
+			throw new IllegalStateException(getName() + " was not made from a prototype");
+		prototype.resetSlot(getStore(), getSlot());
+		move = null;
+		random = null;
+		strategy = prototype.getStrategy();
+		if (strategy == null)
+			usesLeft = null;
+		else if (usesLeft != null && usesLeft.length == strategy.size())
+			strategy.resetCounters(usesLeft);
+		else
+			usesLeft = strategy.newCounters();
+		rule = 0;
 	}
 
 	/**
@@ -34,18 +95,46 @@ public class Monster extends Entity {
 	 * @param moves ArrayList of moves(Cards) to give the Monster.
 	 */
 	private void fillMoves(ArrayList<Card> moves) {
-		for (Card c : moves)
-			this.moves.add(new Card(c));
+		this.moves.addAll(moves);
 	}
 
 	/**
 	 * @return a copy of the Monster's move list.
 	 */
 	public ArrayList<Card> getMoves() {
-		ArrayList<Card> newList = new ArrayList<Card>();
-		for (Card c: moves)
-			newList.add(new Card(c));
-		return newList;
+		return new ArrayList<Card>(moves);
+	}
+
+	/**
+	 * Captures the Monster's chosen move and its progress through its strategy.
+	 * @return the captured State.
+	 */
+	State saveState() {
+		return new State(this);
+	}
+
+	/**
+	 * Puts back the Monster's chosen move and its progress through its strategy as they were when a State was captured, from this Monster or from a copy of it.
+	 * @param s the State to put back.
+	 */
+	void restoreState(State s) {
+		move = s.move;
+		strategy = s.strategy;
+		if (strategy == null)
+			usesLeft = null;
+		else if (usesLeft != null && usesLeft.length == s.usesLeft.length)
+			System.arraycopy(s.usesLeft, 0, usesLeft, 0, usesLeft.length);
+		else
+			usesLeft = s.usesLeft.clone();
+		rule = s.rule;
+	}
+
+	/**
+	 * Sets the generator used to pick the Monster's random moves. Copies of the Monster do not share it.
+	 * @param random the generator to use, or null to use the calling thread's GameRandom.
+	 */
+	public void setRandom(GameRandom random) {
+		this.random = random;
 	}
 
 	/**
@@ -92,70 +181,138 @@ public class Monster extends Entity {
 	 * @return the Monster's next move.
 	 */
 	public Card getMove() {
-		return new Card(move);
+		return move;
+	}
+
+	/**
+	 * @return a hash of the Monster's health, energy and attributes, its next move, and how far through its strategy it is.
+	 */
+	@Override
+	public long getHash() {
+		long h = super.getHash() + (move == null ? 0 : Zobrist.key(move) * 31) + rule * 0x9E3779B97F4A7C15L;
+		if (usesLeft != null)
+			for (int i = rule; i < usesLeft.length; i ++)
+				h += Zobrist.key(i, usesLeft[i]) * 17;
+		return h;
 	}
 
 
 //-----------------------------------------------------------------------------------
 /**
 * @return aCard to be used on setMove(). Card given is determined through Strategy of each monster. if no Strategy is set
-* it will return a random card from monster's moves. if a move in movesList exhausts it's turn while it is still inside the bounds(health range where move works) of a move,
+* it will return a random card from monster's moves. if a move in the strategy exhausts it's turn while it is still inside the bounds(health range where move works) of a move,
 *it will return a random card from monster's moves
 */
 	private Card checkStrategy(){
-		CardsUtil.load();
-		Card toBeUsed =  moves.get((int) (Math.random() * moves.size()));
-		refreshMovesList();
-		if(this.movesList!= null && this.movesList.size()>1)
-		{
-			double highBound = Double.parseDouble(this.movesList.get(0)[0]);
-			double lowBound = Double.parseDouble(this.movesList.get(1)[0]);
-			if (this.getHealth()<= (this.getMaxHealth()*highBound) && this.getHealth()> (this.getMaxHealth()*lowBound))
-			{
-				if (Integer.parseInt(this.movesList.get(0)[2])> 0)
-				{
-					toBeUsed = CardsUtil.get(this.movesList.get(0)[1]);
-					//toBeUsed = moves.get(0);
-					this.movesList.get(0)[2] = Integer.toString(Integer.parseInt(this.movesList.get(0)[2])-1);
-					if(Integer.parseInt(this.movesList.get(0)[2]) == 0){
-						this.movesList.remove(0);}
-				}
-			}
-
-
-		}else if (this.movesList!= null &&this.movesList.size() == 1 && Integer.parseInt(this.movesList.get(0)[2])!=0 &&this.getHealth()<=(this.getMaxHealth()*Double.parseDouble(this.movesList.get(0)[0]))){
-				toBeUsed = CardsUtil.get(this.movesList.get(0)[1]);
-				//	toBeUsed = moves.get(0);
-				this.movesList.get(0)[2] = Integer.toString(Integer.parseInt(this.movesList.get(0)[2])-1);
-				if(Integer.parseInt(this.movesList.get(0)[2]) == 0){
-					this.movesList.remove(0);
+		Card toBeUsed = moves.get((random != null ? random : GameRandom.current()).nextInt(moves.size()));
+		if (strategy == null)
+			return toBeUsed;
+		refreshRule();
+		int health = getHealth(), maxHealth = getMaxHealth();
+		int remaining = strategy.size() - rule;
+		if (remaining > 1) {
+			if (strategy.atOrBelow(rule, health, maxHealth) && !strategy.atOrBelow(rule + 1, health, maxHealth) && usesLeft[rule] > 0)
+				toBeUsed = useRule();
+		} else if (remaining == 1 && usesLeft[rule] != 0 && strategy.atOrBelow(rule, health, maxHealth)) {
+			toBeUsed = useRule();
 		}
+		return toBeUsed;
 	}
-	return toBeUsed;
-}
 
 	/**
-	* refreshes movesList by removing moves that are out of the bounds in which the move is set to work. this is a Private Method and is only used internally.
+	* Uses up one use of the current rule, moving on to the next rule once it has none left. this is a Private Method and is only used internally.
+	* @return the current rule's Card.
 	*/
-	private void refreshMovesList(){
-		while(movesList.size()>1){
-			if (this.getHealth() < this.getMaxHealth()*Double.parseDouble(movesList.get(1)[0]))
-			{
-				movesList.remove(0);
-			}else{break;}
-		}
+	private Card useRule(){
+		Card c = strategy.getCard(rule);
+		if (-- usesLeft[rule] == 0)
+			rule ++;
+		return c;
+	}
+
+	/**
+	* skips rules whose health range the Monster has already dropped below. this is a Private Method and is only used internally.
+	*/
+	private void refreshRule(){
+		while (strategy.size() - rule > 1 && strategy.below(rule + 1, getHealth(), getMaxHealth()))
+			rule ++;
 	}
 
 
 /**
-*sets's the Strategy of the monster as well as setting the movesList that the monster is going to use. Should be set every time a game is started for the monster to hava a strategy
-* @param aStrategy
+*sets's the Strategy of the monster, compiling it into rules that the monster is going to use. Should be set every time a game is started for the monster to hava a strategy
+* @param aStrategy rules separated by '/', each rule being "threshold,card name,uses", from the highest threshold to the lowest.
+* @throws IllegalArgumentException if the strategy is malformed or names an unknown card.
 */
 	public void setStrategy(String aStrategy){
-		this.Strategy = aStrategy;
-		String[] separatedStrategy =  aStrategy.split("/");
-		for(int i = 0 ;i<separatedStrategy.length; i++){
-			movesList.add(separatedStrategy[i].split(","));
+		setStrategy(new MonsterStrategy(aStrategy));
+	}
+
+	/**
+	* Sets an already compiled strategy, and resets the Monster's progress through it.
+	* @param aStrategy the strategy to use, or null for purely random moves.
+	*/
+	public void setStrategy(MonsterStrategy aStrategy){
+		strategy = aStrategy;
+		usesLeft = aStrategy == null ? null : aStrategy.newCounters();
+		rule = 0;
+	}
+
+	/**
+	* @return the Monster's compiled strategy, or null if it has none.
+	*/
+	public MonsterStrategy getStrategy(){
+		return strategy;
+	}
+
+	/**
+	 * A Monster's chosen move and progress through its strategy at one moment. See saveState and restoreState.
+	 */
+	static class State {
+		private final Card move;
+		private final MonsterStrategy strategy;
+		private final int[] usesLeft;
+		private final int rule;
+
+		private State(Monster m) {
+			move = m.move;
+			strategy = m.strategy;
+			usesLeft = m.usesLeft == null ? null : m.usesLeft.clone();
+			rule = m.rule;
+		}
+
+		/**
+		 * Reads a State written by write. The move is looked up by name, so CardsUtil must already be loaded.
+		 * @param in where to read the State from.
+		 * @param strategy the strategy of the Monster the State was captured from; strategies are not written.
+		 * @throws IOException if the State cannot be read, names a card CardsUtil does not have, or does not fit the strategy.
+		 */
+		State(DataInput in, MonsterStrategy strategy) throws IOException {
+			this.strategy = strategy;
+			String name = in.readUTF();
+			move = name.isEmpty() ? null : CardsUtil.get(name);
+			if (move == null && !name.isEmpty())
+				throw new IOException("unknown card: " + name);
+			rule = in.readInt();
+			int n = in.readInt();
+			usesLeft = n < 0 ? null : new int[n];
+			for (int i = 0; i < n; i ++)
+				usesLeft[i] = in.readInt();
+			if ((strategy == null) != (usesLeft == null) || strategy != null && usesLeft.length != strategy.size())
+				throw new IOException("the saved strategy progress does not fit the Monster's strategy");
+		}
+
+		/**
+		 * Writes the State: the move by name, then the strategy progress.
+		 * @param out where to write it.
+		 */
+		void write(DataOutput out) throws IOException {
+			out.writeUTF(move == null ? "" : move.getName());
+			out.writeInt(rule);
+			out.writeInt(usesLeft == null ? -1 : usesLeft.length);
+			if (usesLeft != null)
+				for (int u : usesLeft)
+					out.writeInt(u);
 		}
 	}
 
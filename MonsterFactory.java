@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+/**
+ * Hands out Monsters made from a set of MonsterPrototypes, reusing them rather than making new ones for every combat. A Monster taken with acquire
+ * is always in its prototype's clean state, whatever a previous combat did to it, and is given back with release once its combat is over.
+ * Resetting a Monster copies one slot and refills its strategy counters in place(see Monster.reset), so once the factory holds as many Monsters of a
+ * kind as are ever in use at once, acquiring one allocates nothing and takes the same time however the Monster was used before.
+ *
+ * Every Monster a factory makes is held in the factory's own EntityStore. A factory is not thread-safe: give each thread or simulation its own,
+ * made from the same shared prototypes.
+ */
+public class MonsterFactory {
+
+	private final MonsterPrototype[] prototypes;
+	private final EntityStore store;
+	//The Monsters of each prototype waiting to be acquired.
+	private final Monster[][] free;
+	private final int[] freeCount;
+	//Whether the Monster held in each slot of the store has been acquired and not yet released.
+	private boolean[] leased;
+	private int created;
+
+	/**
+	 * Creates a factory for the given prototypes.
+	 * @param prototypes the kinds of Monster to make, in the order they are numbered by acquire.
+	 */
+	public MonsterFactory(MonsterPrototype... prototypes) {
+		this.prototypes = prototypes.clone();
+		store = new EntityStore(prototypes.length);
+		free = new Monster[prototypes.length][];
+		freeCount = new int[prototypes.length];
+		for (int i = 0; i < prototypes.length; i ++)
+			free[i] = new Monster[1];
+		leased = new boolean[prototypes.length];
+	}
+
+	/**
+	 * Creates a factory for prototypes captured from each of the given Monsters as they are now(see MonsterPrototype(Monster)).
+	 * @param roster the Monsters to capture.
+	 */
+	public MonsterFactory(Monster[] roster) {
+		this(capture(roster));
+	}
+
+	/**
+	 * Private utility method, captures a prototype of each Monster.
+	 */
+	private static MonsterPrototype[] capture(Monster[] roster) {
+		MonsterPrototype[] prototypes = new MonsterPrototype[roster.length];
+		for (int i = 0; i < roster.length; i ++)
+			prototypes[i] = new MonsterPrototype(roster[i]);
+		return prototypes;
+	}
+
+	/**
+	 * @return the number of prototypes.
+	 */
+	public int size() {
+		return prototypes.length;
+	}
+
+	/**
+	 * @param index the prototype's number, counting from 0.
+	 * @return the prototype.
+	 */
+	public MonsterPrototype getPrototype(int index) {
+		return prototypes[index];
+	}
+
+	/**
+	 * @param name a prototype's name.
+	 * @return the number of the first prototype with the name, or -1 if there is none.
+	 */
+	public int indexOf(String name) {
+		for (int i = 0; i < prototypes.length; i ++)
+			if (prototypes[i].getName().equals(name))
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Takes a Monster of a given kind in its prototype's clean state, reusing one that was released if there is one.
+	 * @param index the prototype's number, counting from 0.
+	 * @return the Monster, which must be given back with release once it is no longer used.
+	 */
+	public Monster acquire(int index) {
+		Monster m;
+		if (freeCount[index] > 0) {
+			m = free[index][-- freeCount[index]];
+			free[index][freeCount[index]] = null;
+			m.reset();
+		} else {
+			m = new Monster(store, prototypes[index]);
+			created ++;
+			if (m.getSlot() >= leased.length)
+				leased = Arrays.copyOf(leased, Math.max(leased.length * 2, m.getSlot() + 1));
+		}
+		leased[m.getSlot()] = true;
+		return m;
+	}
+
+	/**
+	 * Gives back a Monster taken with acquire, so that it can be reused. The Monster must not be used afterwards.
+	 * @param m the Monster to give back.
+	 * @throws IllegalArgumentException if the Monster was not acquired from this factory, or has already been given back.
+	 */
+	public void release(Monster m) {
+		if (m.getStore() != store || !leased[m.getSlot()])
+			throw new IllegalArgumentException(m.getName() + " was not acquired from this factory, or has already been released");
+		int index = 0;
+		while (prototypes[index] != m.getPrototype())
+			index ++;
+		leased[m.getSlot()] = false;
+		if (freeCount[index] == free[index].length)
+			free[index] = Arrays.copyOf(free[index], free[index].length * 2);
+		free[index][freeCount[index] ++] = m;
+	}
+
+	/**
+	 * Gives back every Monster of an encounter, which must all have been taken with acquire.
+	 * @param encounter the encounter whose Monsters to give back.
+	 * @throws IllegalArgumentException if a Monster was not acquired from this factory, or has already been given back.
+	 */
+	public void release(Encounter encounter) {
+		for (int i = 0; i < encounter.size(); i ++)
+			release(encounter.get(i));
+	}
+
+	/**
+	 * @return how many Monsters the factory has made, which stops growing once it holds as many of each kind as are ever in use at once.
+	 */
+	public int getCreated() {
+		return created;
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Everything that defines a kind of Monster, captured once and never changed: its name, maximum health, moves, strategy, and the clean state of
+ * its slot(full health, no energy, every attribute as a new Entity's). Any number of threads may share a prototype. Monsters are made from it by a
+ * MonsterFactory, or by newMonster, and are put back into its clean state by copying its slot over theirs, whatever happened to them in a combat.
+ */
+public final class MonsterPrototype {
+
+	private final String name;
+	private final int maxHealth;
+	private final Card[] moves;
+	private final MonsterStrategy strategy;
+	//Slot 0 holds the clean state; nothing writes to it once the prototype is built.
+	private final EntityStore template = new EntityStore(1);
+
+	/**
+	 * Creates a prototype with purely random moves.
+	 * @param name the Monster's name.
+	 * @param maxHealth the Monster's maximum health, which it starts each combat with.
+	 * @param moves the Cards the Monster picks its moves from.
+	 */
+	public MonsterPrototype(String name, int maxHealth, Card... moves) {
+		this(name, maxHealth, (MonsterStrategy) null, moves);
+	}
+
+	/**
+	 * Creates a prototype.
+	 * @param name the Monster's name.
+	 * @param maxHealth the Monster's maximum health, which it starts each combat with.
+	 * @param strategy the Monster's compiled strategy, or null for purely random moves.
+	 * @param moves the Cards the Monster picks its moves from.
+	 */
+	public MonsterPrototype(String name, int maxHealth, MonsterStrategy strategy, Card... moves) {
+		this.name = name;
+		this.maxHealth = maxHealth;
+		this.moves = moves.clone();
+		this.strategy = strategy;
+		new Monster(template, name, maxHealth, moves);
+	}
+
+	/**
+	 * Captures a Monster as it is now: its name, moves and strategy, and its slot as the clean state. Its chosen move and progress through its
+	 * strategy are not captured; Monsters made from the prototype start their strategy from the beginning.
+	 * @param m the Monster to capture, which may be used and changed afterwards.
+	 */
+	public MonsterPrototype(Monster m) {
+		name = m.getName();
+		maxHealth = m.getMaxHealth();
+		moves = m.getMoves().toArray(new Card[0]);
+		strategy = m.getStrategy();
+		template.copySlot(m.getStore(), m.getSlot(), template.allocate());
+	}
+
+	/**
+	 * @return a new Monster in the prototype's clean state, held in its own EntityStore. MonsterFactory reuses Monsters rather than making new ones.
+	 */
+	public Monster newMonster() {
+		return new Monster(new EntityStore(1), this);
+	}
+
+	/**
+	 * Overwrites a slot with the prototype's clean state.
+	 * @param store the store holding the slot.
+	 * @param slot the slot to overwrite.
+	 */
+	void resetSlot(EntityStore store, int slot) {
+		store.copySlot(template, 0, slot);
+	}
+
+	/**
+	 * @return the Monster's name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the Monster's maximum health.
+	 */
+	public int getMaxHealth() {
+		return maxHealth;
+	}
+
+	/**
+	 * @return a copy of the Cards the Monster picks its moves from.
+	 */
+	public Card[] getMoves() {
+		return moves.clone();
+	}
+
+	/**
+	 * @return the Monster's compiled strategy, or null if it has none.
+	 */
+	public MonsterStrategy getStrategy() {
+		return strategy;
+	}
+
+}
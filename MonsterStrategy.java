@@ -0,0 +1,98 @@
+/**
+ * A Monster's strategy, compiled once from its "threshold,card,uses/threshold,card,uses/..." form into typed rules. Each rule holds a health threshold
+ * (as a fraction of maximum health), the Card to use while the Monster's health is at or below that threshold, and how many times it may be used.
+ * Rules must be listed from the highest threshold to the lowest. A MonsterStrategy never changes once compiled, so it can be shared by any number of
+ * Monsters; each Monster keeps its own counters of remaining uses.
+ */
+public class MonsterStrategy {
+
+	/** Thresholds are stored as fixed point fractions of this scale, so health checks need no floating point math. */
+	static final long SCALE = 1000000;
+
+	private final String source;
+	private final long[] thresholds;
+	private final Card[] cards;
+	private final int[] uses;
+
+	/**
+	 * Compiles a strategy, resolving each card name through CardsUtil, which must already be loaded.
+	 * @param strategy rules separated by '/', each rule being "threshold,card name,uses".
+	 * @throws IllegalArgumentException if a rule is malformed or names a card that does not exist.
+	 */
+	public MonsterStrategy(String strategy) {
+		source = strategy;
+		String[] rules = strategy.split("/");
+		thresholds = new long[rules.length];
+		cards = new Card[rules.length];
+		uses = new int[rules.length];
+		for (int i = 0; i < rules.length; i ++) {
+			String[] parts = rules[i].split(",");
+			if (parts.length != 3)
+				throw new IllegalArgumentException("strategy rule '" + rules[i] + "' should be threshold,card,uses");
+			try {
+				thresholds[i] = Math.round(Double.parseDouble(parts[0].trim()) * SCALE);
+				uses[i] = Integer.parseInt(parts[2].trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("strategy rule '" + rules[i] + "' has an invalid threshold or use count");
+			}
+			cards[i] = CardsUtil.get(parts[1]);
+			if (cards[i] == null)
+				throw new IllegalArgumentException("strategy rule '" + rules[i] + "' uses unknown card " + parts[1]);
+		}
+	}
+
+	/**
+	 * @return the number of rules in the strategy.
+	 */
+	public int size() {
+		return cards.length;
+	}
+
+	/**
+	 * @param rule index of the rule.
+	 * @return the Card the rule uses.
+	 */
+	public Card getCard(int rule) {
+		return cards[rule];
+	}
+
+	/**
+	 * @return a new array holding how many times each rule may be used, to be used as a Monster's counters.
+	 */
+	public int[] newCounters() {
+		return uses.clone();
+	}
+
+	/**
+	 * Refills a Monster's counters with how many times each rule may be used, without allocating new ones.
+	 * @param counters counters made by newCounters, of this strategy or one of the same size.
+	 */
+	public void resetCounters(int[] counters) {
+		System.arraycopy(uses, 0, counters, 0, uses.length);
+	}
+
+	/**
+	 * @param rule index of the rule.
+	 * @return whether the given health is at or below the rule's threshold.
+	 */
+	public boolean atOrBelow(int rule, int health, int maxHealth) {
+		return health * SCALE <= maxHealth * thresholds[rule];
+	}
+
+	/**
+	 * @param rule index of the rule.
+	 * @return whether the given health is strictly below the rule's threshold.
+	 */
+	public boolean below(int rule, int health, int maxHealth) {
+		return health * SCALE < maxHealth * thresholds[rule];
+	}
+
+	/**
+	 * @return the strategy in the form it was compiled from.
+	 */
+	@Override
+	public String toString() {
+		return source;
+	}
+
+}
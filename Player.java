@@ -1,7 +1,5 @@
-import java.util.Scanner;
-
 /**
- * Inherits all properties and methods of the Entity class, with additional methods for user interaction and control. Holds a Deck object to store and use Card objects.
+ * Inherits all properties and methods of the Entity class, with additional methods for turn and combat control(the player's decisions are made through a GameEngine's Controller). Holds a Deck object to store and use Card objects.
  */
 public class Player extends Entity {
 	
@@ -16,46 +14,20 @@ public class Player extends Entity {
 	}
 	
 	/**
-	 * Prompts the player to select a Card from their hand, and attempts to use it on the player(as the user) and the given target. If the user enters
-	 * an incorrect index or String value, this will be caught by the try catch block as an IndexOutOfBoundsException or InputMismatchException, and
-	 * returns false, ending the player's turn. Otherwise, whether the card use is successful or not, nextCard will return true, continuing the turn.
-	 * 
-	 * @param target the Entity to attempt to use any cards on.
-	 * @return false if the player wishes to end his/her turn, true if they wish to continue.
+	 * Clones a given Player, including their Deck, into a private EntityStore.
+	 * @param p the Player to clone.
 	 */
-	public boolean nextCard(Entity target) {
-		Scanner in = new Scanner(System.in);
-		System.out.println("Enter the number of the card you wish to use, or anything else to end your turn." + "\n" + deck.handToString());
-		try {
-			int whichCard = Integer.parseInt(in.nextLine());
-			
-			Card card = deck.getHand().get(whichCard);
-			System.out.println(card.getDescription() + "\nPress enter to use, type anything else to go back.");
-			
-			if (in.nextLine().equals("")) {
-				if (card instanceof Skill){
-					card = (Skill)card;
-					if (card.use(this, target)) {
-						deck.drawFromHand(whichCard);
-					} else {
-						System.out.println("You don't have enough energy.");
-					}
-				} else {
-					if (card.use(this, target)) {
-						deck.drawFromHand(whichCard);
-					} else {
-						System.out.println("You don't have enough energy.");
-					}
-				}					
-				
-			} else {
-				System.out.println("Card cancelled");
-			}
-			
-			return true;
-		} catch (Exception e) {
-			return false;
-		}
+	public Player(Player p) {
+		super(p);
+		deck = new Deck(p.deck);
+	}
+	
+	/**
+	 * Creates a Player object held in a new slot of the given EntityStore, with a given name, maximum health, and any number of Cards to put in their deck.
+	 */
+	public Player(EntityStore store, String name, int maxHealth, Card... cards) {
+		super(store, name, maxHealth, maxHealth, 0, 3, 3);
+		deck = new Deck(cards);
 	}
 	
 	/**
@@ -90,6 +62,21 @@ public class Player extends Entity {
 		deck.endCombat();
 	}
 	
+	/**
+	 * @return the Player's Deck. Use its view methods to look at the piles without copying them.
+	 */
+	public Deck getDeck() {
+		return deck;
+	}
+	
+	/**
+	 * @return a hash of the Player's health, energy, attributes and the contents of each pile of their Deck.
+	 */
+	@Override
+	public long getHash() {
+		return super.getHash() + deck.getHash() * 0xD6E8FEB86659FD93L;
+	}
+	
 	/**
 	 * @param c add this card to the player's deck.
 	 */
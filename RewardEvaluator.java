@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Ranks the cards a player could be given as a reward by simulating combats with each card added to their deck. For every candidate, a batch of
+ * combats is simulated against every monster in the roster, all batches running at once in a fork-join pool, and the candidates are ranked by the
+ * resulting deck's win rate, then by the health it has left, then by how quickly it wins.
+ *
+ * Every deck is simulated at the player's full health, so that it is judged by its cards alone. Every candidate is simulated with the same seed, so
+ * they all face the same draws and monster moves as far as their differences allow, which makes their comparison fairer than the number of combats
+ * alone would. Results are cached by the composition of the deck(which cards it holds, in any order), the player's maximum health and energy, and
+ * the seed, so a cached result is only reused where it was simulated with the same random numbers as the candidates it is compared with; a caller
+ * that ranks every reward with the same seed(as GameEngine does) never simulates the same deck twice. The cache holds at most MAX_CACHED results,
+ * dropping the least recently used first.
+ */
+public class RewardEvaluator {
+
+	/** The most deck and monster pairs whose results are cached. */
+	public static final int MAX_CACHED = 4096;
+
+	private final MonsterPrototype[] roster;
+	//Replaced rather than cleared when the settings change, so that simulations already running cannot add stale results to the new cache.
+	private volatile Map<Long, SimulationResult> cache = newCache();
+	private int combats = 200;
+	private int turnLimit = 50;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	//Best first: highest win rate, then most health left, then fewest turns to kill.
+	private static final Comparator<Rating> BEST_FIRST = new Comparator<Rating>() {
+		@Override
+		public int compare(Rating a, Rating b) {
+			int c = Double.compare(b.result.getWinRate(), a.result.getWinRate());
+			if (c == 0)
+				c = Double.compare(b.result.getAverageHealthRemaining(), a.result.getAverageHealthRemaining());
+			if (c == 0)
+				c = Double.compare(a.result.getAverageTurnsToKill(), b.result.getAverageTurnsToKill());
+			return c;
+		}
+	};
+
+	/**
+	 * Creates an evaluator for a given monster roster. Each monster is copied at full health, so the roster may be used by a game afterwards.
+	 * @param roster the monsters to simulate against.
+	 */
+	public RewardEvaluator(Monster[] roster) {
+		this.roster = new MonsterPrototype[roster.length];
+		for (int i = 0; i < roster.length; i ++) {
+			Monster m = new Monster(roster[i]);
+			m.heal(m.getMaxHealth());
+			this.roster[i] = new MonsterPrototype(m);
+		}
+	}
+
+	/**
+	 * Creates an evaluator for a given roster of monster prototypes, which are shared rather than copied.
+	 * @param roster the prototypes of the monsters to simulate against.
+	 */
+	public RewardEvaluator(MonsterPrototype[] roster) {
+		this.roster = roster.clone();
+	}
+
+	/**
+	 * Private utility method, creates an empty cache that drops its least recently used result once it holds more than MAX_CACHED.
+	 */
+	private static Map<Long, SimulationResult> newCache() {
+		return Collections.synchronizedMap(new LinkedHashMap<Long, SimulationResult>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, SimulationResult> eldest) {
+				return size() > MAX_CACHED;
+			}
+		});
+	}
+
+	/**
+	 * @param combats how many combats to simulate against each monster for each candidate. Defaults to 200.
+	 */
+	public void setCombats(int combats) {
+		this.combats = Math.max(1, combats);
+		cache = newCache();
+	}
+
+	/**
+	 * @param turnLimit the most turns a simulated combat may last before it counts as unfinished. Defaults to 50.
+	 */
+	public void setTurnLimit(int turnLimit) {
+		this.turnLimit = turnLimit;
+		cache = newCache();
+	}
+
+	/**
+	 * @param pool the fork-join pool to run simulations in. Defaults to the common pool.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Ranks the given candidates. The player is not changed.
+	 * @param player the Player who would be given the reward, with their current deck; they are simulated at full health.
+	 * @param candidates the cards to choose between.
+	 * @param seed the seed to simulate every candidate with; results cached with a different seed are not used.
+	 * @return a rating of every candidate, best first.
+	 */
+	public List<Rating> rank(Player player, Card[] candidates, long seed) {
+		long deckKey = 0;
+		for (Card c : player.getDeck().viewDeck())
+			deckKey += Zobrist.key(c);
+		deckKey += Zobrist.key(0, player.getMaxHealth(), player.getMaxHealth()) + Zobrist.key(1, player.getMaxEnergy()) + GameRandom.mix64(seed);
+
+		Map<Long, SimulationResult> cache = this.cache;
+		long[][] keys = new long[candidates.length][roster.length];
+		SimulationResult[][] results = new SimulationResult[candidates.length][roster.length];
+		List<List<ForkJoinTask<SimulationResult>>> tasks = new ArrayList<List<ForkJoinTask<SimulationResult>>>();
+		for (int c = 0; c < candidates.length; c ++) {
+			List<ForkJoinTask<SimulationResult>> row = new ArrayList<ForkJoinTask<SimulationResult>>(roster.length);
+			Player p = null;
+			for (int m = 0; m < roster.length; m ++) {
+				keys[c][m] = GameRandom.mix64(deckKey + Zobrist.key(candidates[c]) + m * 0x9E3779B97F4A7C15L);
+				results[c][m] = cache.get(keys[c][m]);
+				if (results[c][m] != null) {
+					row.add(null);
+					continue;
+				}
+				if (p == null) {
+					p = new Player(player);
+					p.endCombat();
+					p.heal(p.getMaxHealth());
+					p.addCard(candidates[c]);
+				}
+				CombatSimulator simulator = new CombatSimulator(p, roster[m]);
+				simulator.setTurnLimit(turnLimit);
+				simulator.setPool(pool);
+				row.add(simulator.fork(combats, seed + m));
+			}
+			tasks.add(row);
+		}
+
+		List<Rating> ratings = new ArrayList<Rating>(candidates.length);
+		for (int c = 0; c < candidates.length; c ++) {
+			SimulationResult total = new SimulationResult();
+			for (int m = 0; m < roster.length; m ++) {
+				ForkJoinTask<SimulationResult> task = tasks.get(c).get(m);
+				if (task != null) {
+					results[c][m] = task.join();
+					cache.put(keys[c][m], results[c][m]);
+				}
+				total.merge(results[c][m]);
+			}
+			ratings.add(new Rating(candidates[c], total));
+		}
+		Collections.sort(ratings, BEST_FIRST);
+		return ratings;
+	}
+
+	/**
+	 * @return the number of deck and monster pairs whose results are cached.
+	 */
+	public int getCacheSize() {
+		return cache.size();
+	}
+
+	/**
+	 * A candidate card and the combined outcome of every combat simulated with it in the deck.
+	 */
+	public static class Rating {
+		private final Card card;
+		private final SimulationResult result;
+
+		private Rating(Card card, SimulationResult result) {
+			this.card = card;
+			this.result = result;
+		}
+
+		/**
+		 * @return the candidate card.
+		 */
+		public Card getCard() {
+			return card;
+		}
+
+		/**
+		 * @return the combined outcome of every combat simulated with the card in the deck.
+		 */
+		public SimulationResult getResult() {
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: win rate %.1f%%, %.1f health remaining", card.getName(), result.getWinRate() * 100, result.getAverageHealthRemaining());
+		}
+	}
+
+}
@@ -0,0 +1,236 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Makes the player's decisions by reading them from a script, one command per line, so that recorded playthroughs can be replayed without a person
+ * or piped keystrokes. One reader is used for the whole run, however many combats it lasts. The commands are:
+ * - play N or play N T: play the card at index N of the hand, on the monster at index T of the encounter. Without a target, the card is played on the
+ *   first living monster; the target is ignored for area cards or when only one monster is alive.
+ * - end: end the turn.
+ * - confirm or cancel: confirm or cancel the card just chosen. Optional; a card is confirmed unless the next command is cancel.
+ * - reward N: take the reward at index N of the ranked rewards(see GameEngine.setRewardEvaluator). Optional; the best ranked reward is taken otherwise.
+ * - continue: acknowledges a pause. Optional, and ignored wherever it appears, so scripts may keep the pauses of a console playthrough.
+ * Blank lines and lines starting with # are skipped.
+ *
+ * Every command is checked against the game before it is used: a command that is not one of the above, a play or reward out of range, or a command
+ * where the game expects a different decision fails with an IllegalArgumentException naming the line, rather than being quietly read as the end of a
+ * turn. Once the script runs out, every turn is ended at once(see isFinished).
+ *
+ * In console mode, the script is instead a recording of what a person typed into a ConsoleController, starting with the player's name and the line
+ * that acknowledged the welcome(see readIntro). Every line answers exactly one prompt, and is read exactly as ConsoleController reads it: a card
+ * number plays that card and anything else, a blank line included, ends the turn; a blank line confirms a card and anything else cancels it; a
+ * target or reward number picks it and anything else takes the first; and any line acknowledges a pause.
+ */
+public class ScriptedController implements Controller {
+
+	private final BufferedReader in;
+	private final boolean console;
+	private int lineNumber;
+	//The next command, read ahead so that optional commands can be looked at without being used; null if it has not been read.
+	private String command;
+	private int argument;
+	//The target given with the next play command, and with the play command last used; -1 if none was given.
+	private int target = -1, chosenTarget = -1;
+	private boolean finished;
+
+	/**
+	 * @param in the reader to read the script from. It is not closed by the controller.
+	 */
+	public ScriptedController(BufferedReader in) {
+		this(in, false);
+	}
+
+	/**
+	 * @param in the reader to read the script from. It is not closed by the controller.
+	 * @param console whether the script is a recording of a console session rather than a list of commands.
+	 */
+	public ScriptedController(BufferedReader in, boolean console) {
+		this.in = in;
+		this.console = console;
+	}
+
+	/**
+	 * In console mode, reads the player's name and the line that acknowledged the welcome, as Game.intro reads them from the console.
+	 * @return the player's name, or "Player" if the script has run out.
+	 */
+	public String readIntro() {
+		String name = nextLine();
+		nextLine();
+		return name == null ? "Player" : name;
+	}
+
+	/**
+	 * Reads the next play or end command, or in console mode the next line.
+	 */
+	@Override
+	public int chooseCard(GameEngine engine) {
+		if (console) {
+			String line = nextLine();
+			int choice = line == null ? -1 : Controller.parseIndex(line);
+			return choice < 0 ? END_TURN : choice;
+		}
+		if (!peek())
+			return END_TURN;
+		if (command.equals("end")) {
+			command = null;
+			return END_TURN;
+		}
+		if (!command.equals("play"))
+			throw invalid("expected play or end, found " + command);
+		if (argument >= engine.getPlayer().getDeck().getHandSize())
+			throw invalid("there is no card " + argument + " in a hand of " + engine.getPlayer().getDeck().getHandSize());
+		Encounter encounter = engine.getEncounter();
+		if (target >= 0 && (target >= encounter.size() || !encounter.get(target).alive()))
+			throw invalid("there is no living monster " + target + " in an encounter of " + encounter.size());
+		command = null;
+		chosenTarget = target;
+		return argument;
+	}
+
+	/**
+	 * Uses the target given with the play command, if any, or in console mode reads the next line.
+	 */
+	@Override
+	public int chooseTarget(GameEngine engine, Card card) {
+		if (console) {
+			String line = nextLine();
+			Encounter encounter = engine.getEncounter();
+			int choice = line == null ? -1 : Controller.parseIndex(line);
+			return choice >= 0 && choice < encounter.size() && encounter.get(choice).alive() ? choice : encounter.firstAliveIndex();
+		}
+		return chosenTarget >= 0 ? chosenTarget : engine.getEncounter().firstAliveIndex();
+	}
+
+	/**
+	 * Reads a confirm or cancel command, if one is next, or in console mode the next line.
+	 */
+	@Override
+	public boolean confirmCard(GameEngine engine, Card card) {
+		if (console) {
+			String line = nextLine();
+			return line == null || line.isEmpty();
+		}
+		if (peek() && (command.equals("confirm") || command.equals("cancel"))) {
+			boolean confirmed = command.equals("confirm");
+			command = null;
+			return confirmed;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a reward command, if one is next, or in console mode the next line.
+	 */
+	@Override
+	public int chooseReward(GameEngine engine, List<RewardEvaluator.Rating> ratings) {
+		if (console) {
+			String line = nextLine();
+			int choice = line == null ? -1 : Controller.parseIndex(line);
+			return choice >= 0 && choice < ratings.size() ? choice : 0;
+		}
+		if (!peek() || !command.equals("reward"))
+			return 0;
+		if (argument >= ratings.size())
+			throw invalid("there is no reward " + argument + " of " + ratings.size());
+		command = null;
+		return argument;
+	}
+
+	/**
+	 * Does nothing, as continue commands are skipped as they are read, except in console mode, where it reads the line that acknowledged the pause.
+	 */
+	@Override
+	public void acknowledge(GameEngine engine) {
+		if (console)
+			nextLine();
+	}
+
+	/**
+	 * @return whether the whole script has been used.
+	 */
+	public boolean isFinished() {
+		return finished && command == null;
+	}
+
+	/**
+	 * @return the number of the last line read.
+	 */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Private utility method, reads the next line of the script as it was written.
+	 * @return the line, or null if the script has run out.
+	 */
+	private String nextLine() {
+		if (finished)
+			return null;
+		String line;
+		try {
+			line = in.readLine();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (line == null)
+			finished = true;
+		else
+			lineNumber ++;
+		return line;
+	}
+
+	/**
+	 * Private utility method, reads the next command into command and argument, unless one is already waiting.
+	 * @return false if the script has run out.
+	 */
+	private boolean peek() {
+		while (command == null && !finished) {
+			String line = nextLine();
+			if (line == null)
+				break;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+
+			int space = line.indexOf(' ');
+			String word = (space < 0 ? line : line.substring(0, space)).toLowerCase();
+			String rest = space < 0 ? "" : line.substring(space + 1);
+			switch (word) {
+				case "play":
+					String[] numbers = rest.trim().split("\\s+");
+					argument = Controller.parseIndex(numbers[0]);
+					target = numbers.length == 2 ? Controller.parseIndex(numbers[1]) : -1;
+					if (argument < 0 || numbers.length > 2 || numbers.length == 2 && target < 0)
+						throw invalid("\"play\" needs a card number and optionally a target number, found \"" + rest + "\"");
+					break;
+				case "reward":
+					argument = Controller.parseIndex(rest);
+					if (argument < 0)
+						throw invalid("\"" + word + "\" needs a number, found \"" + rest + "\"");
+					break;
+				case "end":
+				case "confirm":
+				case "cancel":
+				case "continue":
+					if (!rest.trim().isEmpty())
+						throw invalid("\"" + word + "\" takes no number");
+					break;
+				default:
+					throw invalid("unknown command \"" + line + "\"");
+			}
+			if (!word.equals("continue"))
+				command = word;
+		}
+		return command != null;
+	}
+
+	/**
+	 * Private utility method, creates the exception for an invalid command on the last line read.
+	 */
+	private IllegalArgumentException invalid(String problem) {
+		return new IllegalArgumentException("script line " + lineNumber + ": " + problem);
+	}
+
+}
@@ -0,0 +1,89 @@
+/**
+ * The combined outcome of a batch of simulated combats: how many were won, lost or left unfinished, how many turns the won combats took, and how
+ * much health the player had left after them. Results of separate batches can be combined with merge.
+ */
+public class SimulationResult {
+
+	private long combats, wins, losses, turnsToKill, healthRemaining;
+
+	/**
+	 * Adds the outcome of one combat.
+	 * @param won whether the player won.
+	 * @param lost whether the player was defeated. A combat neither won nor lost reached the turn limit.
+	 * @param turns how many turns the combat lasted.
+	 * @param health the player's health when the combat ended.
+	 */
+	public void add(boolean won, boolean lost, int turns, int health) {
+		combats ++;
+		if (won) {
+			wins ++;
+			turnsToKill += turns;
+			healthRemaining += health;
+		} else if (lost) {
+			losses ++;
+		}
+	}
+
+	/**
+	 * Adds every outcome held by another result to this one.
+	 * @param r the result to add.
+	 * @return this result.
+	 */
+	public SimulationResult merge(SimulationResult r) {
+		combats += r.combats;
+		wins += r.wins;
+		losses += r.losses;
+		turnsToKill += r.turnsToKill;
+		healthRemaining += r.healthRemaining;
+		return this;
+	}
+
+	/**
+	 * @return the number of combats simulated.
+	 */
+	public long getCombats() {
+		return combats;
+	}
+
+	/**
+	 * @return the number of combats the player won.
+	 */
+	public long getWins() {
+		return wins;
+	}
+
+	/**
+	 * @return the number of combats the player lost.
+	 */
+	public long getLosses() {
+		return losses;
+	}
+
+	/**
+	 * @return the fraction of combats the player won, from 0 to 1.
+	 */
+	public double getWinRate() {
+		return combats == 0 ? 0 : (double) wins / combats;
+	}
+
+	/**
+	 * @return the average number of turns the player took to defeat the monster, over the combats they won.
+	 */
+	public double getAverageTurnsToKill() {
+		return wins == 0 ? 0 : (double) turnsToKill / wins;
+	}
+
+	/**
+	 * @return the average health the player had left, over the combats they won.
+	 */
+	public double getAverageHealthRemaining() {
+		return wins == 0 ? 0 : (double) healthRemaining / wins;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d combats: win rate %.1f%%, %d lost, %d unfinished, %.2f turns to kill, %.1f health remaining", combats, getWinRate() * 100,
+				losses, combats - wins - losses, getAverageTurnsToKill(), getAverageHealthRemaining());
+	}
+
+}
@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size cache of evaluated combat states, keyed by their hash(see GameEngine.getHash()), that any number of threads can read and update at once
+ * without locking. Each entry holds how many times a state has been evaluated and the average of its scores, which are expected to be between 0 and 1.
+ *
+ * The table never grows: each hash has one place in the table, and a new state replaces whatever state was there before. Each entry is two longs, the
+ * packed data and the hash exclusive-ored with the data, so that an entry half-written by another thread is seen as missing rather than mixed up with
+ * a different state. Two threads updating the same state at once may lose one of the updates, which only costs a little of the statistics.
+ */
+public class TranspositionTable {
+
+	/** The most entries a table can hold. */
+	public static final int MAX_CAPACITY = 1 << 30;
+
+	private final AtomicLongArray checks, data;
+	private final int mask;
+
+	/**
+	 * Creates an empty table.
+	 * @param capacity the number of entries to hold, rounded up to a power of two.
+	 * @throws IllegalArgumentException if the capacity is more than MAX_CAPACITY.
+	 */
+	public TranspositionTable(int capacity) {
+		if (capacity > MAX_CAPACITY)
+			throw new IllegalArgumentException("a transposition table holds at most " + MAX_CAPACITY + " entries, not " + capacity);
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		checks = new AtomicLongArray(size);
+		data = new AtomicLongArray(size);
+		mask = size - 1;
+	}
+
+	/**
+	 * @return the number of entries the table holds.
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @param hash the state's hash.
+	 * @return how many times the state has been evaluated, or 0 if it is not in the table.
+	 */
+	public int getVisits(long hash) {
+		return visits(lookup(hash));
+	}
+
+	/**
+	 * @param hash the state's hash.
+	 * @return the average of the state's scores, or 0 if it is not in the table.
+	 */
+	public double getValue(long hash) {
+		return value(lookup(hash));
+	}
+
+	/**
+	 * Adds one evaluation to a state, replacing whatever state held its place in the table.
+	 * @param hash the state's hash.
+	 * @param score the evaluation's score, from 0 to 1.
+	 */
+	public void add(long hash, double score) {
+		long entry = lookup(hash);
+		int visits = visits(entry);
+		double value = value(entry);
+		store(hash, visits + 1, value + (score - value) / (visits + 1));
+	}
+
+	/**
+	 * Sets a state's statistics, replacing whatever state held its place in the table.
+	 * @param hash the state's hash.
+	 * @param visits how many times the state has been evaluated.
+	 * @param value the average of the state's scores, from 0 to 1.
+	 */
+	public void store(long hash, int visits, double value) {
+		int i = (int) (hash ^ hash >>> 32) & mask;
+		long entry = (long) Math.min(visits, Integer.MAX_VALUE) << 32 | Float.floatToRawIntBits((float) value) & 0xFFFFFFFFL;
+		data.set(i, entry);
+		checks.set(i, hash ^ entry);
+	}
+
+	/**
+	 * Removes every entry.
+	 */
+	public void clear() {
+		for (int i = 0; i <= mask; i ++) {
+			data.set(i, 0);
+			checks.set(i, 0);
+		}
+	}
+
+	/**
+	 * Private utility method, finds the packed data of a state, or 0 if it is not in the table.
+	 */
+	private long lookup(long hash) {
+		int i = (int) (hash ^ hash >>> 32) & mask;
+		long entry = data.get(i);
+		return (checks.get(i) ^ entry) == hash ? entry : 0;
+	}
+
+	/**
+	 * Private utility method, unpacks the visits of an entry.
+	 */
+	private static int visits(long entry) {
+		return (int) (entry >>> 32);
+	}
+
+	/**
+	 * Private utility method, unpacks the value of an entry.
+	 */
+	private static double value(long entry) {
+		return Float.intBitsToFloat((int) entry);
+	}
+
+}
@@ -0,0 +1,44 @@
+/**
+ * Derives the keys used to hash combat states. A Zobrist hash gives every (feature, value) pair of a state a random 64-bit key, and the hash of a state
+ * is the combination of the keys of everything in it, so when one feature changes the hash is updated by taking out the old key and putting in the new
+ * one instead of hashing the whole state again. The values here are unbounded(health, attribute values, modifier amounts), so rather than keeping a
+ * table of random keys, each key is made by scrambling the feature and value together, which gives the same keys a table would without its memory.
+ * 
+ * Keys are combined by addition rather than exclusive or, so that holding two of the same thing(two Strikes in a hand, two equal modifiers) does
+ * not cancel out.
+ */
+final class Zobrist {
+
+	private static final long SEED = 0x5DEECE66DL;
+
+	private Zobrist() {
+	}
+
+	/**
+	 * @param feature identifies what the value belongs to.
+	 * @param value the value.
+	 * @return the key of the value.
+	 */
+	static long key(int feature, int value) {
+		return GameRandom.mix64(SEED + ((long) feature << 32 | value & 0xFFFFFFFFL) * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * @param feature identifies what the values belong to.
+	 * @param first the first value.
+	 * @param second the second value.
+	 * @return the key of the pair of values.
+	 */
+	static long key(int feature, int first, int second) {
+		return GameRandom.mix64(key(feature, first) + second * 0xC2B2AE3D27D4EB4FL);
+	}
+
+	/**
+	 * @param c a Card.
+	 * @return the key of the Card, made from its name, so every copy of a card shares one key.
+	 */
+	static long key(Card c) {
+		return key(-1, c.getName().hashCode());
+	}
+
+}